@@ -0,0 +1,256 @@
+package com.sdet.pact.consumer.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Base for the typed provider clients.
+ *
+ * All calls go through one async httpclient5 client with a pooled set of
+ * keep-alive connections, so concurrent and batched calls reuse sockets
+ * instead of opening one per request. Every operation has an async form
+ * returning a {@link CompletableFuture}; the blocking forms just wait on it.
+ *
+ * GET responses are kept in a {@link ResponseCache}: fresh entries are
+ * served locally, stale ones with an ETag are revalidated with
+ * {@code If-None-Match}. Writes, and a 404 on read, drop the cached entry
+ * for their path, and a GET that was already in flight when a write
+ * landed doesn't cache its answer.
+ */
+public abstract class ApiClient implements AutoCloseable {
+
+    private static final ContentType JSON = ContentType.create("application/json");
+
+    protected final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final String baseUrl;
+    private final ResponseCache cache;
+    private final CloseableHttpAsyncClient client;
+
+    protected ApiClient(String baseUrl, ClientSettings settings) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.cache = new ResponseCache(settings.cacheEntries, settings.cacheTtlMillis);
+
+        Timeout timeout = Timeout.ofMilliseconds(settings.timeoutMillis);
+        PoolingAsyncClientConnectionManager connections = PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(settings.maxConnections)
+            .setMaxConnPerRoute(settings.maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .build())
+            .build();
+        this.client = HttpAsyncClients.custom()
+            .setConnectionManager(connections)
+            .setDefaultRequestConfig(RequestConfig.custom().setResponseTimeout(timeout).build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+        this.client.start();
+    }
+
+    /**
+     * GET through the response cache
+     */
+    protected <T> CompletableFuture<T> get(String path, JavaType type) {
+        ResponseCache.Entry cached = cache.get(path);
+        if (cached != null && cached.isFresh()) {
+            return CompletableFuture.completedFuture(decode(cached.body, type));
+        }
+
+        SimpleRequestBuilder request = SimpleRequestBuilder.get(uri(path))
+            .addHeader("Accept", "application/json");
+        if (cached != null) {
+            request.addHeader("If-None-Match", cached.etag);
+        }
+        ResponseCache.Read read = cache.startRead(path);
+        return execute(request.build()).<T>thenApply(response -> {
+            if (response.getCode() == 304 && cached != null) {
+                cache.touch(path, read, cached);
+                return decode(cached.body, type);
+            }
+            if (response.getCode() == 404) {
+                // Deleted since it was cached: don't keep revalidating, or offering its ETag for If-Match
+                cache.invalidate(path);
+            }
+            checkStatus(response);
+            byte[] body = response.getBodyBytes();
+            if (response.getCode() == 200) {
+                cache.put(path, read, body, header(response, "ETag"));
+            }
+            return decode(body, type);
+        }).whenComplete((result, error) -> cache.endRead(path, read));
+    }
+
+    /**
+     * Non-GET request with an optional JSON body. Drops the cached entry for
+     * {@code path}; if {@code cacheAs} is set, a 200 response is cached
+     * under that path (e.g. a PUT returning the new representation).
+     */
+    protected <T> CompletableFuture<T> send(String method, String path, Object body, Map<String, String> headers,
+                                            JavaType type, String cacheAs) {
+        SimpleRequestBuilder request = SimpleRequestBuilder.create(method)
+            .setUri(uri(path))
+            .addHeader("Accept", "application/json");
+        headers.forEach(request::addHeader);
+        if (body != null) {
+            try {
+                request.setBody(objectMapper.writeValueAsBytes(body), JSON);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(new ApiException("Could not encode request body", e));
+            }
+        }
+
+        return execute(request.build()).thenApply(response -> {
+            cache.invalidate(path);
+            checkStatus(response);
+            byte[] responseBody = response.getBodyBytes();
+            if (cacheAs != null && response.getCode() == 200) {
+                cache.put(cacheAs, responseBody, header(response, "ETag"));
+            }
+            return type == null || responseBody == null || responseBody.length == 0
+                ? null
+                : decode(responseBody, type);
+        });
+    }
+
+    /**
+     * ETag of the cached representation at {@code path}, if any
+     */
+    protected String cachedETag(String path) {
+        ResponseCache.Entry cached = cache.get(path);
+        return cached != null ? cached.etag : null;
+    }
+
+    protected JavaType type(Class<?> type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    protected JavaType listOf(Class<?> type) {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+    }
+
+    /**
+     * Runs {@code call} for every key concurrently and collects the results;
+     * keys that come back 404 are left out, any other failure fails the batch
+     */
+    protected <K, T> CompletableFuture<Map<K, T>> batch(Collection<K> keys, Function<K, CompletableFuture<T>> call) {
+        Map<K, CompletableFuture<T>> pending = new LinkedHashMap<>();
+        for (K key : keys) {
+            pending.put(key, call.apply(key).exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof ApiException && ((ApiException) cause).isNotFound()) {
+                    return null;
+                }
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(cause);
+            }));
+        }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0])).thenApply(done -> {
+            Map<K, T> results = new LinkedHashMap<>();
+            pending.forEach((key, result) -> {
+                T value = result.join();
+                if (value != null) {
+                    results.put(key, value);
+                }
+            });
+            return results;
+        });
+    }
+
+    /**
+     * Waits for an async call, unwrapping failures into {@link ApiException}
+     */
+    protected static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ApiException) {
+                throw (ApiException) cause;
+            }
+            throw new ApiException("Request failed", cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    private CompletableFuture<SimpleHttpResponse> execute(SimpleHttpRequest request) {
+        CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+        client.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(new ApiException(request.getMethod() + " " + request.getRequestUri()
+                    + " failed: " + e.getMessage(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private <T> T decode(byte[] body, JavaType type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ApiException("Could not decode response as " + type, e);
+        }
+    }
+
+    private static void checkStatus(SimpleHttpResponse response) {
+        if (response.getCode() >= 200 && response.getCode() < 300) {
+            return;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header header : response.getHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        throw new ApiException(response.getCode(), response.getBodyText(), Collections.unmodifiableMap(headers));
+    }
+
+    private static String header(SimpleHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sdet.pact.consumer.client;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Non-2xx response from a provider, or a failure to reach it (status 0)
+ */
+public class ApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final String body;
+    private final Map<String, String> headers;
+
+    public ApiException(int statusCode, String body, Map<String, String> headers) {
+        super("HTTP " + statusCode + (body != null && !body.isEmpty() ? ": " + body : ""));
+        this.statusCode = statusCode;
+        this.body = body;
+        this.headers = headers;
+    }
+
+    public ApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.body = null;
+        this.headers = Collections.emptyMap();
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Response header, looked up case-insensitively
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public boolean isNotFound() {
+        return statusCode == 404;
+    }
+
+    public boolean isConflict() {
+        return statusCode == 409;
+    }
+}
@@ -0,0 +1,44 @@
+package com.sdet.pact.consumer.client;
+
+/**
+ * Connection pool, timeout and cache settings for the provider clients.
+ * Immutable; the {@code with...} methods return a modified copy.
+ */
+public final class ClientSettings {
+
+    private static final ClientSettings DEFAULTS = new ClientSettings(20, 5_000, 1_000, 30_000);
+
+    final int maxConnections;
+    final long timeoutMillis;
+    final int cacheEntries;
+    final long cacheTtlMillis;
+
+    private ClientSettings(int maxConnections, long timeoutMillis, int cacheEntries, long cacheTtlMillis) {
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeoutMillis;
+        this.cacheEntries = cacheEntries;
+        this.cacheTtlMillis = cacheTtlMillis;
+    }
+
+    /**
+     * 20 pooled connections, 5 s timeouts, up to 1000 cached responses for 30 s
+     */
+    public static ClientSettings defaults() {
+        return DEFAULTS;
+    }
+
+    public ClientSettings withMaxConnections(int maxConnections) {
+        return new ClientSettings(maxConnections, timeoutMillis, cacheEntries, cacheTtlMillis);
+    }
+
+    public ClientSettings withTimeoutMillis(long timeoutMillis) {
+        return new ClientSettings(maxConnections, timeoutMillis, cacheEntries, cacheTtlMillis);
+    }
+
+    /**
+     * Cache size and time-to-live; zero entries disables caching
+     */
+    public ClientSettings withCache(int cacheEntries, long cacheTtlMillis) {
+        return new ClientSettings(maxConnections, timeoutMillis, cacheEntries, cacheTtlMillis);
+    }
+}
@@ -0,0 +1,14 @@
+package com.sdet.pact.consumer.client;
+
+/**
+ * Product as returned by the product provider; {@code details} is only
+ * present when requested
+ */
+public class Product {
+    public int id;
+    public String name;
+    public double price;
+    public String category;
+    public boolean inStock;
+    public ProductDetails details;
+}
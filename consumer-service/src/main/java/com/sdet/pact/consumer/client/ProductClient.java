@@ -0,0 +1,55 @@
+package com.sdet.pact.consumer.client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Typed client for the product provider ({@code /api/products})
+ */
+public class ProductClient extends ApiClient {
+
+    public ProductClient(String baseUrl) {
+        this(baseUrl, ClientSettings.defaults());
+    }
+
+    public ProductClient(String baseUrl, ClientSettings settings) {
+        super(baseUrl, settings);
+    }
+
+    public List<Product> getAllProducts() {
+        return await(getAllProductsAsync());
+    }
+
+    public CompletableFuture<List<Product>> getAllProductsAsync() {
+        return get("/api/products", listOf(Product.class));
+    }
+
+    public Product getProduct(int id) {
+        return await(getProductAsync(id, false));
+    }
+
+    /**
+     * Product including its {@code details}
+     */
+    public Product getProductWithDetails(int id) {
+        return await(getProductAsync(id, true));
+    }
+
+    public CompletableFuture<Product> getProductAsync(int id, boolean includeDetails) {
+        return get("/api/products/" + id + (includeDetails ? "?includeDetails=true" : ""), type(Product.class));
+    }
+
+    /**
+     * Fetches several products concurrently over the connection pool;
+     * products that don't exist are left out of the result
+     */
+    public Map<Integer, Product> getProducts(Collection<Integer> ids, boolean includeDetails) {
+        return await(getProductsAsync(ids, includeDetails));
+    }
+
+    public CompletableFuture<Map<Integer, Product>> getProductsAsync(Collection<Integer> ids, boolean includeDetails) {
+        return batch(ids, id -> getProductAsync(id, includeDetails));
+    }
+}
@@ -0,0 +1,7 @@
+package com.sdet.pact.consumer.client;
+
+public class ProductDetails {
+    public String manufacturer;
+    public String warranty;
+    public int stock;
+}
@@ -0,0 +1,135 @@
+package com.sdet.pact.consumer.client;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, TTL-evicting cache of GET response bodies keyed by path.
+ *
+ * Entries younger than the TTL are served without a request. Older entries
+ * are kept (until pushed out by the size bound) if they have an ETag, so
+ * the next read can revalidate them with {@code If-None-Match} and reuse
+ * the body on a 304 instead of downloading it again; entries without an
+ * ETag are dropped once they expire. Eviction is least-recently-used.
+ *
+ * A GET registers a {@link Read} before it goes out. A write to the path
+ * while the read is in flight makes the read stale, and a stale read
+ * can't store its response, so a GET sent before a PUT or DELETE can't
+ * answer after it and put the old representation back.
+ */
+class ResponseCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    // Only paths with a GET in flight, shared by concurrent reads of the same path
+    private final Map<String, Read> reads = new HashMap<>();
+
+    ResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached entry for the path, fresh or revalidatable, or null
+     */
+    synchronized Entry get(String path) {
+        Entry entry = entries.get(path);
+        if (entry != null && !entry.isFresh() && entry.etag == null) {
+            entries.remove(path);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Registers a GET for the path; pair with {@link #endRead}
+     */
+    synchronized Read startRead(String path) {
+        Read read = reads.computeIfAbsent(path, p -> new Read());
+        read.pending++;
+        return read;
+    }
+
+    synchronized void endRead(String path, Read read) {
+        if (--read.pending == 0 && reads.get(path) == read) {
+            reads.remove(path);
+        }
+    }
+
+    /**
+     * Stores a write's own response, e.g. a PUT returning the new representation
+     */
+    synchronized void put(String path, byte[] body, String etag) {
+        staleReads(path);
+        if (maxEntries > 0) {
+            entries.put(path, new Entry(body, etag, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Stores a GET's response, unless the path was written since the GET went out
+     */
+    synchronized void put(String path, Read read, byte[] body, String etag) {
+        if (!read.stale && maxEntries > 0) {
+            entries.put(path, new Entry(body, etag, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Marks a revalidated (304) entry fresh again, unless the path was
+     * written since the revalidation went out
+     */
+    synchronized void touch(String path, Read read, Entry entry) {
+        if (!read.stale) {
+            entries.put(path, new Entry(entry.body, entry.etag, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    synchronized void invalidate(String path) {
+        staleReads(path);
+        entries.remove(path);
+    }
+
+    private void staleReads(String path) {
+        Read read = reads.remove(path);
+        if (read != null) {
+            read.stale = true;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * GETs of one path in flight; guarded by the cache
+     */
+    static final class Read {
+        private int pending;
+        private boolean stale;
+    }
+
+    static final class Entry {
+        final byte[] body;
+        final String etag;
+        private final long expiresAt;
+
+        Entry(byte[] body, String etag, long expiresAt) {
+            this.body = body;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.sdet.pact.consumer.client;
+
+/**
+ * User as returned by the user provider
+ */
+public class User {
+    public int id;
+    public String name;
+    public String email;
+    public String role;
+    public boolean active;
+}
@@ -0,0 +1,95 @@
+package com.sdet.pact.consumer.client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Typed client for the user provider ({@code /api/users})
+ *
+ * Usage:
+ * <pre>
+ *   try (UserClient users = new UserClient("http://localhost:8080")) {
+ *       User user = users.getUser(1);
+ *       users.updateUser(1, new UserRequest("John Updated", null, null), users.eTagOf(1));
+ *   }
+ * </pre>
+ */
+public class UserClient extends ApiClient {
+
+    public UserClient(String baseUrl) {
+        this(baseUrl, ClientSettings.defaults());
+    }
+
+    public UserClient(String baseUrl, ClientSettings settings) {
+        super(baseUrl, settings);
+    }
+
+    public User getUser(int id) {
+        return await(getUserAsync(id));
+    }
+
+    public CompletableFuture<User> getUserAsync(int id) {
+        return get(userPath(id), type(User.class));
+    }
+
+    /**
+     * Fetches several users concurrently over the connection pool; users
+     * that don't exist are left out of the result
+     */
+    public Map<Integer, User> getUsers(Collection<Integer> ids) {
+        return await(getUsersAsync(ids));
+    }
+
+    public CompletableFuture<Map<Integer, User>> getUsersAsync(Collection<Integer> ids) {
+        return batch(ids, this::getUserAsync);
+    }
+
+    public User createUser(UserRequest user) {
+        return await(createUserAsync(user));
+    }
+
+    public CompletableFuture<User> createUserAsync(UserRequest user) {
+        return send("POST", "/api/users", user, Map.of(), type(User.class), null);
+    }
+
+    public User updateUser(int id, UserRequest update) {
+        return updateUser(id, update, null);
+    }
+
+    /**
+     * Updates the user only if it still has the given ETag (409 otherwise);
+     * a null ETag makes the update unconditional
+     */
+    public User updateUser(int id, UserRequest update, String ifMatch) {
+        return await(updateUserAsync(id, update, ifMatch));
+    }
+
+    public CompletableFuture<User> updateUserAsync(int id, UserRequest update, String ifMatch) {
+        return send("PUT", userPath(id), update, conditional(ifMatch), type(User.class), userPath(id));
+    }
+
+    public void deleteUser(int id) {
+        await(deleteUserAsync(id, null));
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(int id, String ifMatch) {
+        return send("DELETE", userPath(id), null, conditional(ifMatch), null, null);
+    }
+
+    /**
+     * ETag of the last representation of the user this client has seen, for
+     * use with {@code If-Match}
+     */
+    public String eTagOf(int id) {
+        return cachedETag(userPath(id));
+    }
+
+    private static String userPath(int id) {
+        return "/api/users/" + id;
+    }
+
+    private static Map<String, String> conditional(String ifMatch) {
+        return ifMatch != null ? Map.of("If-Match", ifMatch) : Map.of();
+    }
+}
@@ -0,0 +1,22 @@
+package com.sdet.pact.consumer.client;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Body for creating or updating a user; null fields are left out, so an
+ * update only touches the fields that are set
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserRequest {
+    public String name;
+    public String email;
+    public String role;
+
+    public UserRequest() {}
+
+    public UserRequest(String name, String email, String role) {
+        this.name = name;
+        this.email = email;
+        this.role = role;
+    }
+}
@@ -0,0 +1,100 @@
+package com.sdet.pact.consumer.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size bound, expiry, ETag retention and write ordering of the client
+ * response cache
+ */
+@DisplayName("Response Cache Tests")
+public class ResponseCacheTest {
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void shouldEvictLeastRecentlyUsed() {
+        ResponseCache cache = new ResponseCache(2, 60_000);
+        cache.put("/a", new byte[0], null);
+        cache.put("/b", new byte[0], null);
+        cache.get("/a");
+        cache.put("/c", new byte[0], null);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("/a"));
+        assertNull(cache.get("/b"));
+        assertNotNull(cache.get("/c"));
+    }
+
+    @Test
+    @DisplayName("Should keep expired entries only if they can be revalidated")
+    void shouldKeepExpiredEntriesWithETag() {
+        ResponseCache cache = new ResponseCache(10, 0);
+        cache.put("/tagged", new byte[] {1}, "\"3\"");
+        cache.put("/untagged", new byte[] {1}, null);
+
+        ResponseCache.Entry tagged = cache.get("/tagged");
+        assertNotNull(tagged);
+        assertFalse(tagged.isFresh());
+        assertEquals("\"3\"", tagged.etag);
+        assertNull(cache.get("/untagged"));
+    }
+
+    @Test
+    @DisplayName("Should serve fresh entries until the TTL passes")
+    void shouldServeFreshEntries() {
+        ResponseCache cache = new ResponseCache(10, 60_000);
+        cache.put("/a", new byte[] {1}, null);
+
+        assertTrue(cache.get("/a").isFresh());
+        cache.invalidate("/a");
+        assertNull(cache.get("/a"));
+    }
+
+    @Test
+    @DisplayName("Should not let a read that was in flight during a write cache its response")
+    void shouldDropReadsOverlappingWrites() {
+        ResponseCache cache = new ResponseCache(10, 60_000);
+        ResponseCache.Read before = cache.startRead("/a");
+        ResponseCache.Read other = cache.startRead("/b");
+        // A DELETE lands while the GET is out
+        cache.invalidate("/a");
+        ResponseCache.Read after = cache.startRead("/a");
+
+        cache.put("/a", before, new byte[] {1}, "\"1\"");
+        cache.endRead("/a", before);
+        cache.put("/b", other, new byte[] {1}, "\"1\"");
+        cache.endRead("/b", other);
+        assertNull(cache.get("/a"));
+        assertNotNull(cache.get("/b"));
+
+        // A read sent after the write caches as usual
+        cache.put("/a", after, new byte[] {2}, "\"2\"");
+        cache.endRead("/a", after);
+        assertEquals("\"2\"", cache.get("/a").etag);
+    }
+
+    @Test
+    @DisplayName("Should not let a write's own response be overwritten by an older read")
+    void shouldKeepWriteResponseOverOlderRead() {
+        ResponseCache cache = new ResponseCache(10, 0);
+        cache.put("/a", new byte[] {1}, "\"1\"");
+        ResponseCache.Entry cached = cache.get("/a");
+        ResponseCache.Read first = cache.startRead("/a");
+        ResponseCache.Read second = cache.startRead("/a");
+
+        // A PUT returning version 2 lands while both revalidations are out
+        cache.put("/a", new byte[] {2}, "\"2\"");
+        cache.touch("/a", first, cached);
+        cache.endRead("/a", first);
+        cache.put("/a", second, new byte[] {1}, "\"1\"");
+        cache.endRead("/a", second);
+
+        assertEquals("\"2\"", cache.get("/a").etag);
+    }
+}
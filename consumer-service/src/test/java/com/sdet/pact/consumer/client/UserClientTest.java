@@ -0,0 +1,161 @@
+package com.sdet.pact.consumer.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Drives {@link UserClient} against a small in-process user service to
+ * check ETag revalidation, batched lookups and the async calls
+ */
+@DisplayName("User Client Tests")
+public class UserClientTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    // ID to version; the ETag is the quoted version
+    private final Map<Integer, Integer> users = new ConcurrentHashMap<>();
+    // If-None-Match of every GET /api/users/1, "" when absent
+    private final List<String> conditions = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private UserClient client;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/users/", this::handleGetUser);
+        server.start();
+        // Every cached entry is stale at once, so each read after the first revalidates
+        client = new UserClient("http://localhost:" + server.getAddress().getPort(),
+            ClientSettings.defaults().withCache(10, 0));
+        users.put(1, 1);
+        users.put(2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should revalidate a stale entry and reuse it on 304")
+    void shouldRevalidateStaleEntry() {
+        assertEquals("John Doe", client.getUser(1).name);
+        assertEquals("\"1\"", client.eTagOf(1));
+
+        assertEquals("John Doe", client.getUser(1).name);
+        assertEquals(List.of("", "\"1\""), conditions);
+
+        // Changed on the provider: the 200 replaces the entry and its ETag
+        users.put(1, 2);
+        assertEquals("John Doe", client.getUser(1).name);
+        assertEquals("\"2\"", client.eTagOf(1));
+    }
+
+    @Test
+    @DisplayName("Should drop the cached entry when revalidation finds the user gone")
+    void shouldDropEntryOnNotFound() {
+        client.getUser(1);
+        users.remove(1);
+
+        ApiException error = assertThrows(ApiException.class, () -> client.getUser(1));
+        assertEquals(404, error.getStatusCode());
+        assertNull(client.eTagOf(1));
+
+        // Recreated: read unconditionally instead of revalidating the deleted representation
+        users.put(1, 3);
+        client.getUser(1);
+        assertEquals(List.of("", "\"1\"", ""), conditions);
+        assertEquals("\"3\"", client.eTagOf(1));
+    }
+
+    @Test
+    @DisplayName("Should batch lookups, leaving out missing users")
+    void shouldBatchLookups() {
+        Map<Integer, User> found = client.getUsers(List.of(2, 999, 1));
+
+        assertEquals(List.of(2, 1), new ArrayList<>(found.keySet()));
+        assertEquals(2, found.get(2).id);
+        assertEquals(1, found.get(1).id);
+    }
+
+    @Test
+    @DisplayName("Should fail the batch on any error other than 404")
+    void shouldFailBatchOnServerError() {
+        ApiException error = assertThrows(ApiException.class, () -> client.getUsers(List.of(1, 500)));
+        assertEquals(500, error.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should complete async calls, and fail them with ApiException")
+    void shouldCompleteAsyncCalls() throws Exception {
+        CompletableFuture<User> user = client.getUserAsync(1);
+        CompletableFuture<Map<Integer, User>> batch = client.getUsersAsync(List.of(1, 2));
+        CompletableFuture<User> missing = client.getUserAsync(999);
+
+        assertEquals(1, user.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).id);
+        assertEquals(2, batch.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).size());
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> missing.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(ApiException.class, error.getCause());
+        assertEquals(404, ((ApiException) error.getCause()).getStatusCode());
+    }
+
+    private void handleGetUser(HttpExchange exchange) throws IOException {
+        int id = Integer.parseInt(exchange.getRequestURI().getPath().substring("/api/users/".length()));
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        // Drained up front: the JDK server drops the connection after a bodiless response to an unread request
+        exchange.getRequestBody().close();
+        if (id == 1) {
+            conditions.add(ifNoneMatch != null ? ifNoneMatch : "");
+        }
+
+        Integer version = users.get(id);
+        if (id == 500) {
+            reply(exchange, 500, null, "{\"error\": \"Internal server error\"}");
+        } else if (version == null) {
+            reply(exchange, 404, null, "{\"error\": \"User not found\", \"status\": 404}");
+        } else if (("\"" + version + "\"").equals(ifNoneMatch)) {
+            exchange.getResponseHeaders().add("ETag", ifNoneMatch);
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            reply(exchange, 200, "\"" + version + "\"", "{\"id\": " + id + ", \"name\": \"John Doe\", "
+                + "\"email\": \"john.doe@example.com\", \"role\": \"ADMIN\", \"active\": true}");
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, String etag, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (etag != null) {
+            exchange.getResponseHeaders().add("ETag", etag);
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.sdet.pact.consumer.contracts;
+
+/**
+ * Latency budgets for contract interactions
+ *
+ * Produces the pact comment that provider verification looks for. The
+ * provider replays the interaction {@code samples} times after
+ * {@code warmup} unmeasured calls and fails if the measured p99 exceeds
+ * the budget, so only attach budgets to requests that are safe to repeat.
+ *
+ * Example:
+ * <pre>
+ *   .path("/api/users/1")
+ *   .method("GET")
+ *   .comment(LatencyBudget.p99(50))
+ * </pre>
+ */
+public final class LatencyBudget {
+
+    public static final String COMMENT_PREFIX = "latency-budget:";
+    private static final int DEFAULT_SAMPLES = 200;
+    private static final int DEFAULT_WARMUP = 20;
+
+    private LatencyBudget() {}
+
+    public static String p99(long millis) {
+        return p99(millis, DEFAULT_SAMPLES, DEFAULT_WARMUP);
+    }
+
+    public static String p99(long millis, int samples, int warmup) {
+        return String.format("%s p99<=%dms samples=%d warmup=%d", COMMENT_PREFIX, millis, samples, warmup);
+    }
+}
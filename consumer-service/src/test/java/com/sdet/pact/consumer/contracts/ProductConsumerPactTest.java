@@ -1,5 +1,6 @@
 package com.sdet.pact.consumer.contracts;
 
+import au.com.dius.pact.consumer.MockServer;
 import au.com.dius.pact.consumer.dsl.PactDslJsonArray;
 import au.com.dius.pact.consumer.dsl.PactDslJsonBody;
 import au.com.dius.pact.consumer.dsl.PactDslWithProvider;
@@ -8,22 +9,28 @@ import au.com.dius.pact.consumer.junit5.PactTestFor;
 import au.com.dius.pact.core.model.PactSpecVersion;
 import au.com.dius.pact.core.model.V4Pact;
 import au.com.dius.pact.core.model.annotations.Pact;
+import au.com.dius.pact.core.model.annotations.PactDirectory;
+import com.sdet.pact.consumer.client.Product;
+import com.sdet.pact.consumer.client.ProductClient;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 /**
  * Consumer Contract Tests for Product Service
  * 
- * Demonstrates contract testing for product-related APIs
+ * Demonstrates contract testing for product-related APIs through the
+ * {@link ProductClient}
  */
 @ExtendWith(PactConsumerTestExt.class)
+@PactDirectory("target/pacts-staging/product-consumer")
 @DisplayName("Product Consumer Contract Tests")
 public class ProductConsumerPactTest {
 
@@ -43,6 +50,7 @@ public class ProductConsumerPactTest {
             .uponReceiving("A request to get all products")
                 .path("/api/products")
                 .method("GET")
+                .comment(LatencyBudget.p99(50))
             .willRespondWith()
                 .status(200)
                 .headers(headers)
@@ -68,22 +76,17 @@ public class ProductConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "getAllProductsPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should retrieve all products successfully")
-    void testGetAllProducts(au.com.dius.pact.consumer.MockServer mockServer) {
-        given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .log().all()
-        .when()
-            .get("/api/products")
-        .then()
-            .log().all()
-            .statusCode(200)
-            .body("$", hasSize(greaterThanOrEqualTo(2)))
-            .body("[0].id", notNullValue())
-            .body("[0].name", notNullValue())
-            .body("[0].price", notNullValue())
-            .body("[0].category", notNullValue())
-            .body("[0].inStock", notNullValue());
+    void testGetAllProducts(MockServer mockServer) {
+        try (ProductClient client = new ProductClient(mockServer.getUrl())) {
+            List<Product> products = client.getAllProducts();
+
+            assertThat(products, hasSize(greaterThanOrEqualTo(2)));
+            assertThat(products.get(0).id, greaterThan(0));
+            assertThat(products.get(0).name, notNullValue());
+            assertThat(products.get(0).price, greaterThan(0.0));
+            assertThat(products.get(0).category, notNullValue());
+            assertThat(products.get(0).inStock, equalTo(true));
+        }
     }
 
     /**
@@ -100,6 +103,7 @@ public class ProductConsumerPactTest {
                 .path("/api/products/1")
                 .method("GET")
                 .query("includeDetails=true")
+                .comment(LatencyBudget.p99(50))
             .willRespondWith()
                 .status(200)
                 .headers(headers)
@@ -121,21 +125,16 @@ public class ProductConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "getProductByIdWithDetailsPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should retrieve product with details")
-    void testGetProductByIdWithDetails(au.com.dius.pact.consumer.MockServer mockServer) {
-        given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .queryParam("includeDetails", "true")
-            .log().all()
-        .when()
-            .get("/api/products/1")
-        .then()
-            .log().all()
-            .statusCode(200)
-            .body("id", equalTo(1))
-            .body("details.manufacturer", notNullValue())
-            .body("details.warranty", notNullValue())
-            .body("details.stock", notNullValue());
+    void testGetProductByIdWithDetails(MockServer mockServer) {
+        try (ProductClient client = new ProductClient(mockServer.getUrl())) {
+            Product product = client.getProductWithDetails(1);
+
+            assertThat(product.id, equalTo(1));
+            assertThat(product.details, notNullValue());
+            assertThat(product.details.manufacturer, notNullValue());
+            assertThat(product.details.warranty, notNullValue());
+            assertThat(product.details.stock, greaterThanOrEqualTo(0));
+        }
     }
 }
 
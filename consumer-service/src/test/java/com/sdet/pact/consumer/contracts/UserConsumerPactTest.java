@@ -1,5 +1,6 @@
 package com.sdet.pact.consumer.contracts;
 
+import au.com.dius.pact.consumer.MockServer;
 import au.com.dius.pact.consumer.dsl.PactDslJsonBody;
 import au.com.dius.pact.consumer.dsl.PactDslWithProvider;
 import au.com.dius.pact.consumer.junit5.PactConsumerTestExt;
@@ -7,8 +8,13 @@ import au.com.dius.pact.consumer.junit5.PactTestFor;
 import au.com.dius.pact.core.model.PactSpecVersion;
 import au.com.dius.pact.core.model.V4Pact;
 import au.com.dius.pact.core.model.annotations.Pact;
-import io.restassured.RestAssured;
-import io.restassured.specification.RequestSpecification;
+import au.com.dius.pact.core.model.annotations.PactDirectory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.consumer.client.ApiException;
+import com.sdet.pact.consumer.client.User;
+import com.sdet.pact.consumer.client.UserClient;
+import com.sdet.pact.consumer.client.UserRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,16 +22,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.util.HashMap;
 import java.util.Map;
 
-import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Consumer Contract Tests for User Service
  * 
  * This test defines the contract expectations from the consumer's perspective.
- * It generates a PACT file that will be verified by the provider.
+ * It generates a PACT file that will be verified by the provider. Each test
+ * drives the real {@link UserClient} against the PACT mock server.
  */
 @ExtendWith(PactConsumerTestExt.class)
+@PactDirectory("target/pacts-staging/user-consumer")
 @DisplayName("User Consumer Contract Tests")
 public class UserConsumerPactTest {
 
@@ -45,6 +54,7 @@ public class UserConsumerPactTest {
             .uponReceiving("A request to get user by ID")
                 .path("/api/users/1")
                 .method("GET")
+                .comment(LatencyBudget.p99(50))
             .willRespondWith()
                 .status(200)
                 .headers(headers)
@@ -61,23 +71,16 @@ public class UserConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "getUserByIdPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should retrieve user by ID successfully")
-    void testGetUserById(au.com.dius.pact.consumer.MockServer mockServer) {
-        RequestSpecification request = given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .log().all();
-
-        request
-            .when()
-                .get("/api/users/1")
-            .then()
-                .log().all()
-                .statusCode(200)
-                .body("id", equalTo(1))
-                .body("name", notNullValue())
-                .body("email", notNullValue())
-                .body("role", notNullValue())
-                .body("active", notNullValue());
+    void testGetUserById(MockServer mockServer) {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            User user = client.getUser(1);
+
+            assertThat(user.id, equalTo(1));
+            assertThat(user.name, notNullValue());
+            assertThat(user.email, notNullValue());
+            assertThat(user.role, notNullValue());
+            assertThat(user.active, equalTo(true));
+        }
     }
 
     /**
@@ -93,6 +96,7 @@ public class UserConsumerPactTest {
             .uponReceiving("A request to get non-existent user")
                 .path("/api/users/999")
                 .method("GET")
+                .comment(LatencyBudget.p99(50))
             .willRespondWith()
                 .status(404)
                 .headers(headers)
@@ -106,18 +110,15 @@ public class UserConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "getUserByIdNotFoundPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should return 404 when user not found")
-    void testGetUserByIdNotFound(au.com.dius.pact.consumer.MockServer mockServer) {
-        given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .log().all()
-        .when()
-            .get("/api/users/999")
-        .then()
-            .log().all()
-            .statusCode(404)
-            .body("error", equalTo("User not found"))
-            .body("status", equalTo(404));
+    void testGetUserByIdNotFound(MockServer mockServer) throws Exception {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            ApiException error = assertThrows(ApiException.class, () -> client.getUser(999));
+
+            assertThat(error.getStatusCode(), equalTo(404));
+            JsonNode body = new ObjectMapper().readTree(error.getBody());
+            assertThat(body.path("error").asText(), equalTo("User not found"));
+            assertThat(body.path("status").asInt(), equalTo(404));
+        }
     }
 
     /**
@@ -157,30 +158,16 @@ public class UserConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "createUserPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should create a new user successfully")
-    void testCreateUser(au.com.dius.pact.consumer.MockServer mockServer) {
-        String requestBody = """
-            {
-                "name": "Jane Smith",
-                "email": "jane.smith@example.com",
-                "role": "USER"
-            }
-            """;
-
-        given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .body(requestBody)
-            .log().all()
-        .when()
-            .post("/api/users")
-        .then()
-            .log().all()
-            .statusCode(201)
-            .body("id", notNullValue())
-            .body("name", equalTo("Jane Smith"))
-            .body("email", equalTo("jane.smith@example.com"))
-            .body("role", equalTo("USER"))
-            .body("active", equalTo(true));
+    void testCreateUser(MockServer mockServer) {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            User user = client.createUser(new UserRequest("Jane Smith", "jane.smith@example.com", "USER"));
+
+            assertThat(user.id, greaterThan(0));
+            assertThat(user.name, equalTo("Jane Smith"));
+            assertThat(user.email, equalTo("jane.smith@example.com"));
+            assertThat(user.role, equalTo("USER"));
+            assertThat(user.active, equalTo(true));
+        }
     }
 
     /**
@@ -219,27 +206,65 @@ public class UserConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "updateUserPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should update user successfully")
-    void testUpdateUser(au.com.dius.pact.consumer.MockServer mockServer) {
-        String requestBody = """
-            {
-                "name": "John Updated",
-                "email": "john.updated@example.com"
-            }
-            """;
-
-        given()
-            .baseUri(mockServer.getUrl())
-            .contentType("application/json")
-            .body(requestBody)
-            .log().all()
-        .when()
-            .put("/api/users/1")
-        .then()
-            .log().all()
-            .statusCode(200)
-            .body("id", equalTo(1))
-            .body("name", equalTo("John Updated"))
-            .body("email", equalTo("john.updated@example.com"));
+    void testUpdateUser(MockServer mockServer) {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            User user = client.updateUser(1, new UserRequest("John Updated", "john.updated@example.com", null));
+
+            assertThat(user.id, equalTo(1));
+            assertThat(user.name, equalTo("John Updated"));
+            assertThat(user.email, equalTo("john.updated@example.com"));
+        }
+    }
+
+    /**
+     * Contract: Update User - Version Conflict Scenario
+     *
+     * The consumer sends the ETag it last read in If-Match; if the user has
+     * changed since, the provider rejects the write instead of overwriting it.
+     */
+    @Pact(consumer = CONSUMER, provider = PROVIDER)
+    public V4Pact updateUserConflictPact(PactDslWithProvider builder) {
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Content-Type", "application/json");
+        requestHeaders.put("If-Match", "\"0\"");
+
+        Map<String, String> responseHeaders = new HashMap<>();
+        responseHeaders.put("Content-Type", "application/json");
+
+        PactDslJsonBody requestBody = new PactDslJsonBody()
+            .stringType("name", "John Updated")
+            .stringType("email", "john.updated@example.com");
+
+        return builder
+            .given("User with ID 1 exists")
+            .uponReceiving("A request to update user with a stale version")
+                .path("/api/users/1")
+                .method("PUT")
+                .headers(requestHeaders)
+                .body(requestBody)
+            .willRespondWith()
+                .status(409)
+                .headers(responseHeaders)
+                .matchHeader("ETag", "\"\\d+\"", "\"1\"")
+                .body(new PactDslJsonBody()
+                    .stringType("error", "Version conflict")
+                    .integerType("status", 409)
+                )
+            .toPact(V4Pact.class);
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "updateUserConflictPact", pactVersion = PactSpecVersion.V4)
+    @DisplayName("Should reject update with a stale version")
+    void testUpdateUserConflict(MockServer mockServer) {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            UserRequest update = new UserRequest("John Updated", "john.updated@example.com", null);
+            ApiException error = assertThrows(ApiException.class, () -> client.updateUser(1, update, "\"0\""));
+
+            assertThat(error.isConflict(), equalTo(true));
+            assertThat(error.getHeader("ETag"), notNullValue());
+            assertThat(error.getBody(), containsString("Version conflict"));
+        }
     }
 
     /**
@@ -260,15 +285,10 @@ public class UserConsumerPactTest {
     @Test
     @PactTestFor(pactMethod = "deleteUserPact", pactVersion = PactSpecVersion.V4)
     @DisplayName("Should delete user successfully")
-    void testDeleteUser(au.com.dius.pact.consumer.MockServer mockServer) {
-        given()
-            .baseUri(mockServer.getUrl())
-            .log().all()
-        .when()
-            .delete("/api/users/1")
-        .then()
-            .log().all()
-            .statusCode(204);
+    void testDeleteUser(MockServer mockServer) {
+        try (UserClient client = new UserClient(mockServer.getUrl())) {
+            client.deleteUser(1);
+        }
     }
 }
 
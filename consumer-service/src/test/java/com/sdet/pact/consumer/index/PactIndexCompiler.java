@@ -0,0 +1,228 @@
+package com.sdet.pact.consumer.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Pact Index Compiler
+ *
+ * Compiles the pact files generated by the consumer tests into a single
+ * binary index that provider verification can memory-map instead of
+ * re-reading and re-parsing every pact file in the folder.
+ *
+ * Layout (all integers big-endian, strings are int length + UTF-8 bytes):
+ * <pre>
+ *   header     : magic "PIDX", int version, int providerCount, int blobStart
+ *   sources    : int fileCount, fileCount x (string name, long size, long lastModified)
+ *   unindexed  : int count, count x string provider
+ *   directory  : providerCount x (string provider, int sectionOffset)
+ *   section    : int consumerCount, consumerCount x (string consumer, string metadata),
+ *                int stateCount, then per state:
+ *                  string state, int entryCount,
+ *                  entryCount x (string consumer, int blobOffset, int blobLength)
+ *   blob       : minified interaction JSON, offsets are relative to blobStart
+ * </pre>
+ *
+ * Interactions are grouped by provider and then by provider state (multiple
+ * states are joined with " &amp; ", stateless interactions use ""). Ordering is
+ * deterministic so the index only changes when the pacts do. The sources
+ * list records exactly which pact files were compiled, so the loader can
+ * tell when one has since been added, removed or rewritten. Each pact's
+ * {@code metadata} is kept as minified JSON so the loader hands it back
+ * unchanged.
+ *
+ * Only V4 pacts are indexed, since the loader rebuilds interactions with
+ * pact-jvm's V4 model. A provider with any pact file of another
+ * {@code pactSpecification.version} is listed as unindexed instead, and the
+ * loader reads that provider's pacts from the folder.
+ *
+ * Runs as part of the consumer build (see pom.xml); a missing pact folder is
+ * not an error so {@code -DskipTests} builds still succeed.
+ */
+public class PactIndexCompiler {
+
+    public static final String INDEX_FILE_NAME = "pacts.idx";
+    private static final int MAGIC = 0x50494458; // "PIDX"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        File pactDir = new File(args.length > 0 ? args[0] : "target/pacts");
+        new PactIndexCompiler().compile(pactDir);
+    }
+
+    public void compile(File pactDir) throws IOException {
+        File[] pactFiles = pactDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (pactFiles == null || pactFiles.length == 0) {
+            System.out.println("No pact files in " + pactDir + ", skipping pact index");
+            if (pactFiles != null) {
+                Files.deleteIfExists(pactDir.toPath().resolve(INDEX_FILE_NAME));
+            }
+            return;
+        }
+        Arrays.sort(pactFiles, Comparator.comparing(File::getName));
+
+        // provider -> state -> entries, and provider -> consumer -> metadata
+        Map<String, Map<String, List<Entry>>> providers = new TreeMap<>();
+        Map<String, Map<String, byte[]>> metadata = new TreeMap<>();
+        Set<String> unindexed = new TreeSet<>();
+        for (File pactFile : pactFiles) {
+            JsonNode pact = objectMapper.readTree(pactFile);
+            String consumer = pact.path("consumer").path("name").asText();
+            String provider = pact.path("provider").path("name").asText();
+            String specification = pact.path("metadata").path("pactSpecification").path("version").asText("");
+            if (!specification.startsWith("4.")) {
+                System.out.println("Not indexing " + pactFile.getName() + " (pact specification "
+                    + (specification.isEmpty() ? "unknown" : specification) + "), " + provider
+                    + " will be loaded from the pact folder");
+                unindexed.add(provider);
+                continue;
+            }
+            metadata.computeIfAbsent(provider, p -> new TreeMap<>())
+                .put(consumer, objectMapper.writeValueAsBytes(pact.path("metadata")));
+            for (JsonNode interaction : pact.path("interactions")) {
+                providers.computeIfAbsent(provider, p -> new TreeMap<>())
+                    .computeIfAbsent(stateKey(interaction), s -> new ArrayList<>())
+                    .add(new Entry(consumer, interaction.path("description").asText(),
+                        objectMapper.writeValueAsBytes(interaction)));
+            }
+        }
+        // The folder loader reads all of an unindexed provider's pacts, V4 ones included
+        providers.keySet().removeAll(unindexed);
+        int interactionCount = providers.values().stream()
+            .flatMap(states -> states.values().stream())
+            .mapToInt(List::size)
+            .sum();
+
+        Path target = pactDir.toPath().resolve(INDEX_FILE_NAME);
+        Path temp = pactDir.toPath().resolve(INDEX_FILE_NAME + ".tmp");
+        Files.write(temp, encode(pactFiles, unindexed, providers, metadata));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Pact index written to " + target + " (" + providers.size()
+            + " providers, " + interactionCount + " interactions)");
+    }
+
+    private byte[] encode(File[] pactFiles, Set<String> unindexed, Map<String, Map<String, List<Entry>>> providers,
+                          Map<String, Map<String, byte[]>> metadata) throws IOException {
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        List<byte[]> sections = new ArrayList<>();
+        for (Map.Entry<String, Map<String, List<Entry>>> provider : providers.entrySet()) {
+            Map<String, List<Entry>> states = provider.getValue();
+            ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+            DataOutputStream section = new DataOutputStream(sectionBytes);
+            Map<String, byte[]> consumers = metadata.get(provider.getKey());
+            section.writeInt(consumers.size());
+            for (Map.Entry<String, byte[]> consumer : consumers.entrySet()) {
+                writeString(section, consumer.getKey());
+                section.writeInt(consumer.getValue().length);
+                section.write(consumer.getValue());
+            }
+            section.writeInt(states.size());
+            for (Map.Entry<String, List<Entry>> state : states.entrySet()) {
+                List<Entry> entries = state.getValue();
+                entries.sort(Comparator.comparing((Entry e) -> e.consumer).thenComparing(e -> e.description));
+                writeString(section, state.getKey());
+                section.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    writeString(section, entry.consumer);
+                    section.writeInt(blob.size());
+                    section.writeInt(entry.json.length);
+                    blob.write(entry.json);
+                }
+            }
+            section.flush();
+            sections.add(sectionBytes.toByteArray());
+        }
+
+        ByteArrayOutputStream sourceBytes = new ByteArrayOutputStream();
+        DataOutputStream sources = new DataOutputStream(sourceBytes);
+        sources.writeInt(pactFiles.length);
+        for (File pactFile : pactFiles) {
+            writeString(sources, pactFile.getName());
+            sources.writeLong(pactFile.length());
+            sources.writeLong(pactFile.lastModified());
+        }
+        sources.writeInt(unindexed.size());
+        for (String provider : unindexed) {
+            writeString(sources, provider);
+        }
+        sources.flush();
+
+        int directorySize = 0;
+        for (String provider : providers.keySet()) {
+            directorySize += 4 + utf8(provider).length + 4;
+        }
+        int sectionOffset = HEADER_SIZE + sourceBytes.size() + directorySize;
+        int blobStart = sectionOffset + sections.stream().mapToInt(s -> s.length).sum();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(blobStart + blob.size());
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(providers.size());
+        data.writeInt(blobStart);
+        sourceBytes.writeTo(data);
+
+        int i = 0;
+        for (String provider : providers.keySet()) {
+            writeString(data, provider);
+            data.writeInt(sectionOffset);
+            sectionOffset += sections.get(i++).length;
+        }
+        for (byte[] section : sections) {
+            data.write(section);
+        }
+        blob.writeTo(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private static String stateKey(JsonNode interaction) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode state : interaction.path("providerStates")) {
+            names.add(state.path("name").asText());
+        }
+        return String.join(" & ", names);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = utf8(value);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+        final String consumer;
+        final String description;
+        final byte[] json;
+
+        Entry(String consumer, String description, byte[] json) {
+            this.consumer = consumer;
+            this.description = description;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.sdet.pact.consumer.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compiles hand-written pacts and reads the index header back, checking
+ * that pacts of other specification versions leave their provider
+ * unindexed and that each pact's metadata is kept as written
+ */
+@DisplayName("Pact Index Compiler Tests")
+public class PactIndexCompilerTest {
+
+    private static final String V4_METADATA =
+        "{\"pact-jvm\":{\"version\":\"4.6.5\"},\"pactSpecification\":{\"version\":\"4.0\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path pactDir;
+
+    @Test
+    @DisplayName("Should index V4 pacts with their metadata and leave other providers to the folder loader")
+    void shouldOnlyIndexV4Pacts() throws IOException {
+        writePact("Web", "Orders", V4_METADATA);
+        writePact("Web", "Billing", V4_METADATA);
+        // One V3 pact is enough to leave the whole provider out, its V4 pacts included
+        writePact("Mobile", "Billing", "{\"pactSpecification\":{\"version\":\"3.0.0\"}}");
+
+        new PactIndexCompiler().compile(pactDir.toFile());
+
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(pactDir.resolve(PactIndexCompiler.INDEX_FILE_NAME)));
+        assertEquals(0x50494458, index.getInt());
+        assertEquals(3, index.getInt());
+        int providerCount = index.getInt();
+        index.getInt();
+        int fileCount = index.getInt();
+        assertEquals(3, fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            readString(index);
+            index.position(index.position() + 16);
+        }
+        List<String> unindexed = new ArrayList<>();
+        for (int i = index.getInt(); i > 0; i--) {
+            unindexed.add(readString(index));
+        }
+        assertEquals(List.of("Billing"), unindexed);
+
+        assertEquals(1, providerCount);
+        assertEquals("Orders", readString(index));
+        index.position(index.getInt());
+        assertEquals(1, index.getInt());
+        assertEquals("Web", readString(index));
+        assertEquals(objectMapper.readTree(V4_METADATA), objectMapper.readTree(readString(index)));
+    }
+
+    private void writePact(String consumer, String provider, String metadata) throws IOException {
+        String pact = "{\"consumer\":{\"name\":\"" + consumer + "\"},"
+            + "\"provider\":{\"name\":\"" + provider + "\"},"
+            + "\"interactions\":[{\"type\":\"Synchronous/HTTP\",\"description\":\"get\","
+            + "\"request\":{\"method\":\"GET\",\"path\":\"/\"},\"response\":{\"status\":200}}],"
+            + "\"metadata\":" + metadata + "}";
+        Files.writeString(pactDir.resolve(consumer + "-" + provider + ".json"), pact);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package com.sdet.pact.consumer.merge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Pact File Merger
+ *
+ * Consumer test classes run concurrently (see junit-platform.properties) and
+ * each writes its pacts into its own folder under {@code target/pacts-staging}
+ * via {@code @PactDirectory}, so no two threads ever touch the same file.
+ * Once the tests have finished, the staged files are merged into
+ * {@code target/pacts}: interactions are de-duplicated and sorted by
+ * description and provider states, and each pact file is replaced
+ * atomically. The output is identical regardless of thread scheduling.
+ * Two test classes defining the same interaction (description and provider
+ * states) differently fail the merge, leaving the staged files for
+ * inspection and {@code target/pacts} untouched. Pact files in
+ * {@code target/pacts} that this run didn't stage are deleted, so a
+ * removed consumer test doesn't leave its pact behind.
+ *
+ * Runs as its own steps of the consumer build (see pom.xml) rather than
+ * inside the test JVM, so a failed merge fails the build instead of leaving
+ * stale pacts behind:
+ * - {@code clear <staging>} before the tests, dropping an earlier run's files
+ * - {@code merge <staging> <output>} after them
+ */
+public class PactFileMerger {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && "clear".equals(args[0])) {
+            deleteRecursively(Paths.get(args[1]));
+        } else if (args.length == 3 && "merge".equals(args[0])) {
+            new PactFileMerger().merge(Paths.get(args[1]), Paths.get(args[2]));
+        } else {
+            throw new IllegalArgumentException("Usage: PactFileMerger clear <staging> | merge <staging> <output>");
+        }
+    }
+
+    public void merge(Path stagingDir, Path outputDir) throws IOException {
+        if (!Files.isDirectory(stagingDir)) {
+            return;
+        }
+
+        // pact file name -> staged copies, one per test class
+        Map<String, List<Path>> staged = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(stagingDir)) {
+            files.filter(file -> file.toString().endsWith(".json"))
+                .sorted()
+                .forEach(file -> staged.computeIfAbsent(file.getFileName().toString(), n -> new ArrayList<>()).add(file));
+        }
+
+        // Everything is merged before anything is written, so a conflict leaves the output as it was
+        Map<String, ObjectNode> mergedPacts = new TreeMap<>();
+        List<String> conflicts = new ArrayList<>();
+        for (Map.Entry<String, List<Path>> pactFile : staged.entrySet()) {
+            mergedPacts.put(pactFile.getKey(), mergePact(pactFile.getValue(), conflicts));
+        }
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException("Conflicting interaction definitions, staged pacts left in "
+                + stagingDir + ":\n  " + String.join("\n  ", conflicts));
+        }
+
+        Files.createDirectories(outputDir);
+        for (Map.Entry<String, ObjectNode> merged : mergedPacts.entrySet()) {
+            Path target = outputDir.resolve(merged.getKey());
+            Path temp = outputDir.resolve(merged.getKey() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), merged.getValue());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Merged " + staged.get(merged.getKey()).size() + " staged pact(s) into " + target);
+        }
+        try (Stream<Path> files = Files.list(outputDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".json") && !staged.containsKey(name)) {
+                    Files.delete(file);
+                    System.out.println("Deleted " + file + ", no longer written by any test");
+                }
+            }
+        }
+        deleteRecursively(stagingDir);
+    }
+
+    private ObjectNode mergePact(List<Path> stagedFiles, List<String> conflicts) throws IOException {
+        ObjectNode merged = null;
+        Map<String, JsonNode> interactions = new TreeMap<>();
+        Map<String, Path> sources = new TreeMap<>();
+        for (Path stagedFile : stagedFiles) {
+            ObjectNode pact = (ObjectNode) objectMapper.readTree(stagedFile.toFile());
+            if (merged == null) {
+                merged = pact;
+            }
+            for (JsonNode interaction : pact.path("interactions")) {
+                String key = interactionKey(interaction);
+                JsonNode existing = interactions.putIfAbsent(key, interaction);
+                if (existing != null && !existing.equals(interaction)) {
+                    conflicts.add("'" + interaction.path("description").asText() + "' in "
+                        + sources.get(key) + " and " + stagedFile);
+                } else if (existing == null) {
+                    sources.put(key, stagedFile);
+                }
+            }
+        }
+
+        ArrayNode sorted = objectMapper.createArrayNode();
+        interactions.values().forEach(sorted::add);
+        merged.set("interactions", sorted);
+        return merged;
+    }
+
+    private static String interactionKey(JsonNode interaction) {
+        List<String> states = new ArrayList<>();
+        for (JsonNode state : interaction.path("providerStates")) {
+            states.add(state.path("name").asText());
+        }
+        return interaction.path("description").asText() + "\u0000" + String.join("\u0000", states);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.sdet.pact.provider.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a reflection-free JSON encoder for the annotated class.
+ *
+ * {@link JsonCodecProcessor} emits {@code <SimpleName>Codec} next to the
+ * class, with static {@code write(JsonSink, T)}, {@code encode(T)} and
+ * {@code encodeAll(Iterable)} methods. The output matches Jackson's default
+ * {@code ObjectMapper}: public non-static fields, superclass fields first,
+ * fields annotated {@code @JsonIgnore} left out.
+ *
+ * Supported field types: primitives and their wrappers, {@code String},
+ * and other {@code @JsonCodec} classes.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface JsonCodec {
+}
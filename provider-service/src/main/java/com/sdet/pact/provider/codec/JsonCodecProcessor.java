@@ -0,0 +1,263 @@
+package com.sdet.pact.provider.codec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor behind {@link JsonCodec}.
+ *
+ * For each annotated class it writes a {@code <SimpleName>Codec} source
+ * file whose {@code write} method emits every field in order: the field
+ * name with its surrounding punctuation is a precomputed byte array, the
+ * value goes through the matching {@link JsonSink} method. There is no
+ * reflection, no per-call type lookup and nothing to warm up beyond the
+ * generated method itself.
+ *
+ * Runs on any compile that has this module's classes on the processor
+ * path; registered via {@code META-INF/services}.
+ */
+@SupportedAnnotationTypes("com.sdet.pact.provider.codec.JsonCodec")
+public class JsonCodecProcessor extends AbstractProcessor {
+
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(JsonCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@JsonCodec only applies to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            try {
+                List<VariableElement> fields = collectFields(type);
+                if (fields != null) {
+                    generate(type, fields);
+                }
+            } catch (IOException e) {
+                error(type, "Could not write codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serialized fields, superclass first, or null if the class can't be
+     * encoded the way Jackson would encode it
+     */
+    private List<VariableElement> collectFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement parent = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (!parent.getQualifiedName().contentEquals("java.lang.Object")) {
+                List<VariableElement> inherited = collectFields(parent);
+                if (inherited == null) {
+                    return null;
+                }
+                fields.addAll(inherited);
+            }
+        }
+
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (isGetter(method)) {
+                // Jackson would serialize it too, and the codec only sees fields
+                error(method, "@JsonCodec classes must not declare public getters");
+                valid = false;
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                || modifiers.contains(Modifier.TRANSIENT) || hasAnnotation(field, JSON_IGNORE)) {
+                continue;
+            }
+            if (writeStatement(field) == null) {
+                error(field, "Unsupported field type for @JsonCodec: " + field.asType());
+                valid = false;
+            }
+            fields.add(field);
+        }
+        return valid ? fields : null;
+    }
+
+    private void generate(TypeElement type, List<VariableElement> fields) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String codecName = codecName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.sdet.pact.provider.codec.JsonSink;\n")
+            .append("import java.nio.charset.StandardCharsets;\n\n")
+            .append("/**\n * JSON encoder for {@link ").append(typeName).append("}, generated by ")
+            .append(getClass().getSimpleName()).append("\n */\n")
+            .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+            .append("public final class ").append(codecName).append(" {\n\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            String prefix = (i == 0 ? "{" : ",") + "\"" + fields.get(i).getSimpleName() + "\":";
+            source.append("    private static final byte[] FIELD_").append(i)
+                .append(" = ").append(literal(prefix)).append(".getBytes(StandardCharsets.UTF_8);\n");
+        }
+
+        source.append("\n    private ").append(codecName).append("() {}\n\n")
+            .append("    public static void write(JsonSink sink, ").append(typeName).append(" value) {\n")
+            .append("        if (value == null) {\n")
+            .append("            sink.nullValue();\n")
+            .append("            return;\n")
+            .append("        }\n");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append("        sink.raw(FIELD_").append(i).append(");\n")
+                .append("        ").append(writeStatement(fields.get(i))).append("\n");
+        }
+        source.append(fields.isEmpty() ? "        sink.raw('{');\n" : "")
+            .append("        sink.raw('}');\n")
+            .append("    }\n\n")
+            .append("    public static byte[] encode(").append(typeName).append(" value) {\n")
+            .append("        JsonSink sink = new JsonSink();\n")
+            .append("        write(sink, value);\n")
+            .append("        return sink.toByteArray();\n")
+            .append("    }\n\n")
+            .append("    public static byte[] encodeAll(Iterable<? extends ").append(typeName).append("> values) {\n")
+            .append("        JsonSink sink = new JsonSink();\n")
+            .append("        sink.raw('[');\n")
+            .append("        boolean first = true;\n")
+            .append("        for (").append(typeName).append(" value : values) {\n")
+            .append("            if (!first) {\n")
+            .append("                sink.raw(',');\n")
+            .append("            }\n")
+            .append("            write(sink, value);\n")
+            .append("            first = false;\n")
+            .append("        }\n")
+            .append("        sink.raw(']');\n")
+            .append("        return sink.toByteArray();\n")
+            .append("    }\n")
+            .append("}\n");
+
+        String qualifiedCodec = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedCodec, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * Statement that writes {@code value.<field>} to {@code sink}, or null
+     * if the field type isn't supported
+     */
+    private String writeStatement(VariableElement field) {
+        String access = "value." + field.getSimpleName();
+        TypeMirror type = field.asType();
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "sink.bool(" + access + ");";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "sink.number(" + access + ");";
+            case CHAR:
+                return "sink.string(String.valueOf(" + access + "));";
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        switch (element.getQualifiedName().toString()) {
+            case "java.lang.String":
+                return "sink.string(" + access + ");";
+            case "java.lang.Boolean":
+                return "sink.bool(" + access + ");";
+            case "java.lang.Byte":
+            case "java.lang.Short":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Float":
+            case "java.lang.Double":
+                return "sink.number((Number) " + access + ");";
+            case "java.lang.Character":
+                return "sink.string(" + access + " == null ? null : String.valueOf(" + access + "));";
+            default:
+                break;
+        }
+        if (element.getAnnotation(JsonCodec.class) != null) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+            String codec = packageName.isEmpty() ? codecName(element) : packageName + "." + codecName(element);
+            return codec + ".write(sink, " + access + ");";
+        }
+        return null;
+    }
+
+    private static boolean isGetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        return method.getModifiers().contains(Modifier.PUBLIC)
+            && !method.getModifiers().contains(Modifier.STATIC)
+            && method.getParameters().isEmpty()
+            && method.getReturnType().getKind() != TypeKind.VOID
+            && ((name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2));
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals(annotationType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String codecName(TypeElement type) {
+        return type.getSimpleName() + "Codec";
+    }
+
+    // Java string literal for a field-name prefix such as {"id":
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
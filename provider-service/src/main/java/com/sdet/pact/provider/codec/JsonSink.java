@@ -0,0 +1,235 @@
+package com.sdet.pact.provider.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer that generated codecs write JSON tokens into.
+ *
+ * Field names and punctuation are written as pre-encoded byte arrays, and
+ * integers are formatted straight into the buffer, so encoding an object
+ * costs a handful of array copies and no reflection or intermediate
+ * strings. Escaping follows Jackson's defaults so output is byte-for-byte
+ * the same as {@code ObjectMapper.writeValueAsBytes}.
+ *
+ * Not thread-safe; use one sink per request (or per thread, with
+ * {@link #reset()}).
+ */
+public final class JsonSink {
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] MIN_INT = "-2147483648".getBytes();
+    private static final byte[] MIN_LONG = "-9223372036854775808".getBytes();
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private byte[] buffer;
+    private int count;
+
+    public JsonSink() {
+        this(256);
+    }
+
+    public JsonSink(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Pre-encoded bytes, e.g. a field name with its quotes and colon
+     */
+    public JsonSink raw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+
+    /**
+     * Single ASCII character, e.g. a bracket or comma
+     */
+    public JsonSink raw(char c) {
+        ensure(1);
+        buffer[count++] = (byte) c;
+        return this;
+    }
+
+    public JsonSink nullValue() {
+        return raw(NULL);
+    }
+
+    public JsonSink bool(boolean value) {
+        return raw(value ? TRUE : FALSE);
+    }
+
+    public JsonSink bool(Boolean value) {
+        return value == null ? nullValue() : bool(value.booleanValue());
+    }
+
+    public JsonSink number(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return raw(MIN_INT);
+        }
+        return number((long) value);
+    }
+
+    public JsonSink number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return raw(MIN_LONG);
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        count = end;
+        return this;
+    }
+
+    public JsonSink number(double value) {
+        // Jackson quotes non-finite numbers by default
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return string(Double.toString(value));
+        }
+        return ascii(Double.toString(value));
+    }
+
+    public JsonSink number(float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return string(Float.toString(value));
+        }
+        return ascii(Float.toString(value));
+    }
+
+    public JsonSink number(Number value) {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Double) {
+            return number(value.doubleValue());
+        }
+        if (value instanceof Float) {
+            return number(value.floatValue());
+        }
+        return number(value.longValue());
+    }
+
+    /**
+     * Quoted, escaped JSON string (or null)
+     */
+    public JsonSink string(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        int length = value.length();
+        // Worst case: every char becomes a 6-byte \\uXXXX escape
+        ensure(length * 6 + 2);
+        byte[] buf = buffer;
+        int pos = count;
+        buf[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buf[pos++] = (byte) c;
+                } else {
+                    pos = escape(buf, pos, c);
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson writes each surrogate half as its own escape
+                pos = unicodeEscape(buf, pos, c);
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buf[pos++] = '"';
+        count = pos;
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    private JsonSink ascii(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    private static int escape(byte[] buf, int pos, char c) {
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"':
+                buf[pos++] = '"';
+                break;
+            case '\\':
+                buf[pos++] = '\\';
+                break;
+            case '\b':
+                buf[pos++] = 'b';
+                break;
+            case '\t':
+                buf[pos++] = 't';
+                break;
+            case '\n':
+                buf[pos++] = 'n';
+                break;
+            case '\f':
+                buf[pos++] = 'f';
+                break;
+            case '\r':
+                buf[pos++] = 'r';
+                break;
+            default:
+                return unicodeEscape(buf, pos - 1, c);
+        }
+        return pos;
+    }
+
+    private static int unicodeEscape(byte[] buf, int pos, char c) {
+        buf[pos++] = '\\';
+        buf[pos++] = 'u';
+        buf[pos++] = HEX[c >> 12];
+        buf[pos++] = HEX[(c >> 8) & 0xF];
+        buf[pos++] = HEX[(c >> 4) & 0xF];
+        buf[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+
+    private void ensure(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + extra));
+        }
+    }
+}
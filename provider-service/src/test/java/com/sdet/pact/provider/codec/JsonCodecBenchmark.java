@@ -0,0 +1,82 @@
+package com.sdet.pact.provider.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.provider.stubs.ProductCodec;
+import com.sdet.pact.provider.stubs.ProductProviderStub.Product;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductDetails;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductWithDetails;
+import com.sdet.pact.provider.stubs.ProductWithDetailsCodec;
+import com.sdet.pact.provider.stubs.UserCodec;
+import com.sdet.pact.provider.stubs.UserProviderStub.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state encoding throughput of the stub entities: Jackson's
+ * reflective ObjectMapper against the generated codecs.
+ *
+ * Run with {@code mvn -pl provider-service -Pjmh verify -DskipTests
+ * -Djmh.args="JsonCodecBenchmark"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class JsonCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private ProductWithDetails productWithDetails;
+    private List<Product> products;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        user = new User(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+        productWithDetails = new ProductWithDetails(new Product(1, "Laptop", 999.99, "Electronics", true));
+        productWithDetails.details = new ProductDetails("TechCorp", "2 years", 50);
+        products = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            products.add(new Product(i, "Product " + i, i * 10.5, i % 2 == 0 ? "Electronics" : "Accessories", i % 3 != 0));
+        }
+    }
+
+    @Benchmark
+    public byte[] userJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] userCodec() {
+        return UserCodec.encode(user);
+    }
+
+    @Benchmark
+    public byte[] productWithDetailsJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productWithDetails);
+    }
+
+    @Benchmark
+    public byte[] productWithDetailsCodec() {
+        return ProductWithDetailsCodec.encode(productWithDetails);
+    }
+
+    @Benchmark
+    public byte[] productListJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productListCodec() {
+        return ProductCodec.encodeAll(products);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sdet.pact.provider.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.provider.stubs.ProductProviderStub.Product;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductDetails;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductWithDetails;
+import com.sdet.pact.provider.stubs.ProductWithDetailsCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the first encode in a fresh JVM, which is what a stub pays on
+ * the first request of a verification run. Jackson builds its serializers
+ * by introspection on first use; a generated codec only has to load one
+ * class.
+ *
+ * Each fork measures a single call, so many forks are needed for a stable
+ * figure. Run with {@code mvn -pl provider-service -Pjmh verify -DskipTests
+ * -Djmh.args="JsonCodecColdStartBenchmark"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Thread)
+public class JsonCodecColdStartBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ProductWithDetails product;
+
+    @Setup
+    public void setup() {
+        // Mapper construction is outside the measurement; stubs build it up front too
+        objectMapper = new ObjectMapper();
+        product = new ProductWithDetails(new Product(1, "Laptop", 999.99, "Electronics", true));
+        product.details = new ProductDetails("TechCorp", "2 years", 50);
+    }
+
+    @Benchmark
+    public byte[] firstEncodeJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] firstEncodeCodec() {
+        return ProductWithDetailsCodec.encode(product);
+    }
+}
@@ -0,0 +1,104 @@
+package com.sdet.pact.provider.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.provider.stubs.ProductCodec;
+import com.sdet.pact.provider.stubs.ProductProviderStub.Product;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductDetails;
+import com.sdet.pact.provider.stubs.ProductProviderStub.ProductWithDetails;
+import com.sdet.pact.provider.stubs.ProductWithDetailsCodec;
+import com.sdet.pact.provider.stubs.UserCodec;
+import com.sdet.pact.provider.stubs.UserProviderStub.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the generated codecs produce exactly the bytes Jackson's default
+ * ObjectMapper would, so swapping them into the stubs changes nothing on
+ * the wire
+ */
+@DisplayName("Generated JSON Codec Tests")
+public class JsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should encode users like Jackson, leaving out ignored fields")
+    void shouldEncodeUsers() throws Exception {
+        User user = new User(1, "John Doe", "john.doe@example.com", "ADMIN", true, 7);
+        assertSameAsJackson(objectMapper.writeValueAsBytes(user), UserCodec.encode(user));
+
+        User sparse = new User(-42, null, "", null, false);
+        assertSameAsJackson(objectMapper.writeValueAsBytes(sparse), UserCodec.encode(sparse));
+    }
+
+    @Test
+    @DisplayName("Should escape strings like Jackson")
+    void shouldEscapeStrings() throws Exception {
+        String[] names = {
+            "quote \" backslash \\ slash /",
+            "tab\t newline\n return\r backspace\b formfeed\f",
+            "control \u0000 \u0001 \u001f del \u007f",
+            "latin é ß, cjk 漢字, emoji 😀",
+            "line separator \u2028 paragraph separator \u2029"
+        };
+        for (String name : names) {
+            User user = new User(1, name, name, name, true);
+            assertSameAsJackson(objectMapper.writeValueAsBytes(user), UserCodec.encode(user));
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode numbers like Jackson")
+    void shouldEncodeNumbers() throws Exception {
+        double[] prices = {0, -0.0, 0.1, 99.99, 1e20, 1.0E-5, Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY};
+        int[] ids = {0, 9, 10, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i = 0; i < prices.length; i++) {
+            Product product = new Product(ids[i % ids.length], "Laptop", prices[i], "Electronics", i % 2 == 0);
+            assertSameAsJackson(objectMapper.writeValueAsBytes(product), ProductCodec.encode(product));
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode inherited and nested fields like Jackson")
+    void shouldEncodeNestedProducts() throws Exception {
+        ProductWithDetails product = new ProductWithDetails(new Product(1, "Laptop", 999.99, "Electronics", true));
+        assertSameAsJackson(objectMapper.writeValueAsBytes(product), ProductWithDetailsCodec.encode(product));
+
+        product.details = new ProductDetails("TechCorp", "2 years", 50);
+        assertSameAsJackson(objectMapper.writeValueAsBytes(product), ProductWithDetailsCodec.encode(product));
+    }
+
+    @Test
+    @DisplayName("Should encode lists like Jackson")
+    void shouldEncodeLists() throws Exception {
+        List<Product> products = Arrays.asList(
+            new Product(1, "Laptop", 999.99, "Electronics", true),
+            null,
+            new Product(2, "Mouse", 29.99, "Accessories", false)
+        );
+        assertSameAsJackson(objectMapper.writeValueAsBytes(products), ProductCodec.encodeAll(products));
+        assertSameAsJackson(objectMapper.writeValueAsBytes(List.of()), ProductCodec.encodeAll(List.of()));
+    }
+
+    @Test
+    @DisplayName("Should grow the sink past its initial capacity")
+    void shouldGrowSink() throws Exception {
+        JsonSink sink = new JsonSink(16);
+        String name = "x".repeat(10_000);
+        UserCodec.write(sink, new User(1, name, name, name, true));
+        assertSameAsJackson(objectMapper.writeValueAsBytes(new User(1, name, name, name, true)), sink.toByteArray());
+
+        sink.reset();
+        assertEquals(0, sink.size());
+    }
+
+    private static void assertSameAsJackson(byte[] expected, byte[] actual) {
+        assertEquals(new String(expected, StandardCharsets.UTF_8), new String(actual, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,245 @@
+package com.sdet.pact.provider.loader;
+
+import au.com.dius.pact.core.model.Consumer;
+import au.com.dius.pact.core.model.FileSource;
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.Pact;
+import au.com.dius.pact.core.model.PactSource;
+import au.com.dius.pact.core.model.Provider;
+import au.com.dius.pact.core.model.V4Interaction;
+import au.com.dius.pact.core.model.V4Pact;
+import au.com.dius.pact.core.support.Json;
+import au.com.dius.pact.core.support.Result;
+import au.com.dius.pact.core.support.json.JsonParser;
+import au.com.dius.pact.provider.junitsupport.loader.PactFolderLoader;
+import au.com.dius.pact.provider.junitsupport.loader.PactLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pact loader backed by the binary index produced by the consumer build
+ * ({@code PactIndexCompiler} in consumer-service).
+ *
+ * The index is memory-mapped and only the directory and the section of the
+ * provider under verification are walked; pact files for other providers
+ * are never opened. Interaction payloads are still handed to pact-jvm as
+ * JSON (its model needs matching rules and generators as JsonValue), but
+ * only the minified slices belonging to this provider are decoded.
+ *
+ * Each pact is rebuilt with the metadata of the file it came from.
+ *
+ * Falls back to {@link PactFolderLoader} when the index is absent or stale:
+ * the index lists the name, size and modification time of every pact file
+ * it was compiled from, and any difference from the folder's current
+ * {@code *.json} files (one added, removed or rewritten) makes it stale.
+ * It also falls back for a provider the compiler left unindexed because
+ * one of its pacts isn't V4.
+ */
+public class IndexedPactLoader implements PactLoader {
+
+    static final String INDEX_FILE_NAME = "pacts.idx";
+    private static final int MAGIC = 0x50494458; // "PIDX"
+    private static final int VERSION = 3;
+
+    private final File pactFolder;
+    private final File indexFile;
+
+    public IndexedPactLoader(PactIndex pactIndex) {
+        this(new File(pactIndex.value()));
+    }
+
+    public IndexedPactLoader(File pactFolder) {
+        this.pactFolder = pactFolder;
+        this.indexFile = new File(pactFolder, INDEX_FILE_NAME);
+    }
+
+    @Override
+    public String description() {
+        return "Pact index (" + indexFile + ")";
+    }
+
+    @Override
+    public PactSource getPactSource() {
+        return new FileSource(indexFile);
+    }
+
+    @Override
+    public List<Pact> load(String providerName) throws IOException {
+        if (!isIndexCurrent()) {
+            System.out.println("Pact index missing or stale, loading pact folder " + pactFolder);
+            return new PactFolderLoader(pactFolder).load(providerName);
+        }
+
+        Section section = readSection(providerName);
+        if (section.unindexed) {
+            System.out.println("Pacts for " + providerName + " aren't all V4, loading pact folder " + pactFolder);
+            return new PactFolderLoader(pactFolder).load(providerName);
+        }
+
+        Map<String, List<Interaction>> byConsumer = new LinkedHashMap<>();
+        for (IndexEntry entry : section.entries) {
+            byConsumer.computeIfAbsent(entry.consumer, c -> new ArrayList<>())
+                .add(entry.toInteraction(getPactSource()));
+        }
+
+        List<Pact> pacts = new ArrayList<>();
+        for (Map.Entry<String, List<Interaction>> consumer : byConsumer.entrySet()) {
+            String metadata = section.metadata.get(consumer.getKey());
+            pacts.add(new V4Pact(new Consumer(consumer.getKey()), new Provider(providerName), consumer.getValue(),
+                Json.INSTANCE.toMap(JsonParser.parseString(metadata)), getPactSource()));
+        }
+        return pacts;
+    }
+
+    /**
+     * Interactions for a provider grouped by provider state, in index order;
+     * empty for a provider the index doesn't cover
+     */
+    public Map<String, List<IndexEntry>> loadByState(String providerName) throws IOException {
+        Map<String, List<IndexEntry>> byState = new LinkedHashMap<>();
+        for (IndexEntry entry : readSection(providerName).entries) {
+            byState.computeIfAbsent(entry.state, s -> new ArrayList<>()).add(entry);
+        }
+        return byState;
+    }
+
+    boolean isIndexCurrent() throws IOException {
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        File[] pactFiles = pactFolder.listFiles((dir, name) -> name.endsWith(".json"));
+        if (pactFiles == null) {
+            return false;
+        }
+        Map<String, File> current = new HashMap<>();
+        for (File pactFile : pactFiles) {
+            current.put(pactFile.getName(), pactFile);
+        }
+
+        ByteBuffer index = map();
+        if (index.getInt() != MAGIC || index.getInt() != VERSION) {
+            // Written by an older compiler
+            return false;
+        }
+        index.position(index.position() + 8);
+        int fileCount = index.getInt();
+        if (fileCount != current.size()) {
+            return false;
+        }
+        for (int i = 0; i < fileCount; i++) {
+            File pactFile = current.get(readString(index));
+            long size = index.getLong();
+            long lastModified = index.getLong();
+            if (pactFile == null || pactFile.length() != size || pactFile.lastModified() != lastModified) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Section readSection(String providerName) throws IOException {
+        MappedByteBuffer index = map();
+        if (index.getInt() != MAGIC || index.getInt() != VERSION) {
+            throw new IOException("Unsupported pact index format: " + indexFile);
+        }
+        int providerCount = index.getInt();
+        int blobStart = index.getInt();
+        int fileCount = index.getInt();
+        for (int i = 0; i < fileCount; i++) {
+            int nameLength = index.getInt();
+            index.position(index.position() + nameLength + 16);
+        }
+        Section section = new Section();
+        int unindexedCount = index.getInt();
+        for (int i = 0; i < unindexedCount; i++) {
+            section.unindexed |= readString(index).equals(providerName);
+        }
+
+        int sectionOffset = -1;
+        for (int i = 0; i < providerCount && sectionOffset < 0; i++) {
+            String name = readString(index);
+            int offset = index.getInt();
+            if (name.equals(providerName)) {
+                sectionOffset = offset;
+            }
+        }
+        if (sectionOffset < 0) {
+            return section;
+        }
+
+        index.position(sectionOffset);
+        int consumerCount = index.getInt();
+        for (int c = 0; c < consumerCount; c++) {
+            section.metadata.put(readString(index), readString(index));
+        }
+        int stateCount = index.getInt();
+        for (int s = 0; s < stateCount; s++) {
+            String state = readString(index);
+            int entryCount = index.getInt();
+            for (int e = 0; e < entryCount; e++) {
+                String consumer = readString(index);
+                int offset = index.getInt();
+                int length = index.getInt();
+                section.entries.add(new IndexEntry(consumer, state, index.slice(blobStart + offset, length)));
+            }
+        }
+        return section;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // What the index holds for one provider: pact metadata by consumer, and its interactions
+    private static class Section {
+        final Map<String, String> metadata = new HashMap<>();
+        final List<IndexEntry> entries = new ArrayList<>();
+        boolean unindexed;
+    }
+
+    /**
+     * A single indexed interaction; the JSON slice stays in the mapped file
+     * until the interaction is actually needed.
+     */
+    public static class IndexEntry {
+        public final String consumer;
+        public final String state;
+        private final ByteBuffer json;
+
+        IndexEntry(String consumer, String state, ByteBuffer json) {
+            this.consumer = consumer;
+            this.state = state;
+            this.json = json;
+        }
+
+        public Interaction toInteraction(PactSource source) {
+            String content = StandardCharsets.UTF_8.decode(json.duplicate()).toString();
+            Result<V4Interaction, String> result =
+                V4Interaction.Companion.interactionFromJson(0, JsonParser.parseString(content), source);
+            V4Interaction interaction = result.get();
+            if (interaction == null) {
+                throw new IllegalStateException("Invalid interaction in pact index: " + result.errorValue());
+            }
+            return interaction;
+        }
+    }
+}
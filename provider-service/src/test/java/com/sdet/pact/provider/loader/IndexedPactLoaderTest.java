@@ -0,0 +1,135 @@
+package com.sdet.pact.provider.loader;
+
+import au.com.dius.pact.core.model.BasePact;
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.Pact;
+import au.com.dius.pact.core.model.PactSpecVersion;
+import au.com.dius.pact.provider.junitsupport.loader.PactFolderLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Round-trips the consumer build's pacts through {@code PactIndexCompiler}
+ * and {@link IndexedPactLoader}, comparing the result with
+ * {@link PactFolderLoader}, and checks that any change to the pact folder
+ * makes the index stale
+ */
+@DisplayName("Indexed Pact Loader Tests")
+public class IndexedPactLoaderTest {
+
+    private static final Path CONSUMER_PACTS = Path.of("../consumer-service/target/pacts");
+    private static final List<String> PROVIDERS = List.of("UserProvider", "ProductProvider");
+
+    @TempDir
+    Path pactFolder;
+
+    @BeforeEach
+    void copyConsumerPacts() throws IOException {
+        assumeTrue(Files.isRegularFile(CONSUMER_PACTS.resolve(IndexedPactLoader.INDEX_FILE_NAME)),
+            "Needs the consumer build's pacts and index");
+        try (Stream<Path> files = Files.list(CONSUMER_PACTS)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                // Keeps modification times, which the index records
+                Files.copy(file, pactFolder.resolve(file.getFileName()), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should load the same interactions as the pact folder")
+    void shouldMatchFolderLoader() throws IOException {
+        IndexedPactLoader loader = new IndexedPactLoader(pactFolder.toFile());
+        assertTrue(loader.isIndexCurrent());
+
+        for (String provider : PROVIDERS) {
+            List<Pact> indexedPacts = loader.load(provider);
+            List<Pact> folderPacts = new PactFolderLoader(pactFolder.toFile()).load(provider);
+            Map<String, List<Map<String, ?>>> indexed = byConsumer(indexedPacts);
+            assertFalse(indexed.isEmpty(), "No interactions indexed for " + provider);
+            assertEquals(byConsumer(folderPacts), indexed, provider);
+            assertEquals(metadataByConsumer(folderPacts), metadataByConsumer(indexedPacts), provider);
+        }
+    }
+
+    @Test
+    @DisplayName("Should treat the index as stale once a pact file is removed")
+    void shouldDetectRemovedPactFile() throws IOException {
+        Path removed = pactFiles().get(0);
+        Files.delete(removed);
+
+        IndexedPactLoader loader = new IndexedPactLoader(pactFolder.toFile());
+        assertFalse(loader.isIndexCurrent());
+        for (String provider : PROVIDERS) {
+            assertEquals(byConsumer(new PactFolderLoader(pactFolder.toFile()).load(provider)),
+                byConsumer(loader.load(provider)), provider);
+        }
+    }
+
+    @Test
+    @DisplayName("Should treat the index as stale once a pact file is added, even an old one")
+    void shouldDetectAddedPactFile() throws IOException {
+        Path copy = pactFolder.resolve("Extra-" + pactFiles().get(0).getFileName());
+        Files.copy(pactFiles().get(0), copy, StandardCopyOption.COPY_ATTRIBUTES);
+        Instant indexed = Files.getLastModifiedTime(pactFolder.resolve(IndexedPactLoader.INDEX_FILE_NAME)).toInstant();
+        Files.setLastModifiedTime(copy, FileTime.from(indexed.minusSeconds(3600)));
+
+        assertFalse(new IndexedPactLoader(pactFolder.toFile()).isIndexCurrent());
+    }
+
+    @Test
+    @DisplayName("Should treat the index as stale once a pact file is rewritten")
+    void shouldDetectRewrittenPactFile() throws IOException {
+        Path rewritten = pactFiles().get(0);
+        Files.setLastModifiedTime(rewritten, FileTime.from(Files.getLastModifiedTime(rewritten).toInstant().plusSeconds(1)));
+
+        assertFalse(new IndexedPactLoader(pactFolder.toFile()).isIndexCurrent());
+    }
+
+    private List<Path> pactFiles() throws IOException {
+        try (Stream<Path> files = Files.list(pactFolder)) {
+            return files.filter(file -> file.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Map<String, Map<String, ?>> metadataByConsumer(List<Pact> pacts) {
+        Map<String, Map<String, ?>> metadata = new TreeMap<>();
+        for (Pact pact : pacts) {
+            metadata.put(pact.getConsumer().getName(), ((BasePact) pact).getMetadata());
+        }
+        return metadata;
+    }
+
+    // consumer -> interactions as V4 JSON maps, sorted so loader order doesn't matter
+    private static Map<String, List<Map<String, ?>>> byConsumer(List<Pact> pacts) {
+        Map<String, List<Map<String, ?>>> byConsumer = new TreeMap<>();
+        for (Pact pact : pacts) {
+            List<Map<String, ?>> interactions = byConsumer.computeIfAbsent(pact.getConsumer().getName(),
+                consumer -> new ArrayList<>());
+            for (Interaction interaction : pact.getInteractions()) {
+                interactions.add(interaction.toMap(PactSpecVersion.V4));
+            }
+            interactions.sort((a, b) -> a.toString().compareTo(b.toString()));
+        }
+        return byConsumer;
+    }
+}
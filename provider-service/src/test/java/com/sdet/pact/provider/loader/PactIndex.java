@@ -0,0 +1,28 @@
+package com.sdet.pact.provider.loader;
+
+import au.com.dius.pact.provider.junitsupport.loader.PactSource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Loads pacts from the precompiled index written by the consumer build
+ * into the given pact folder.
+ *
+ * Drop-in replacement for {@code @PactFolder}: when the index is missing or
+ * older than the pact files next to it, the folder is loaded as usual.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+@PactSource(IndexedPactLoader.class)
+public @interface PactIndex {
+
+    /**
+     * Folder containing the pact files and the {@code pacts.idx} index
+     */
+    String value();
+}
@@ -0,0 +1,324 @@
+package com.sdet.pact.provider.recording;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Pact Recorder
+ *
+ * Turns exchanges captured by the {@link RecordingProxy} into V4 pact
+ * interactions. Exchanges are de-duplicated by shape: method, path with
+ * numeric segments replaced by {@code {id}}, query parameter names, status
+ * and the JSON structure (field names and value types) of both bodies.
+ * The first exchange seen for a shape becomes the interaction's example,
+ * with type matchers on every body field and a regex on templated paths.
+ *
+ * All of this runs on a single background thread fed by a bounded queue,
+ * so proxied requests never wait on JSON parsing or disk I/O. Whenever a
+ * batch of exchanges contains a new shape the pact file is rewritten
+ * atomically, so the file on disk is always a complete, loadable pact.
+ * If the queue is full the exchange is dropped and counted instead of
+ * blocking the proxy.
+ */
+public class PactRecorder implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("^\\d+$");
+    private static final RecordedExchange SHUTDOWN =
+        new RecordedExchange(null, null, null, null, null, false, 0, null, null, false);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final BlockingQueue<RecordedExchange> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<String, ObjectNode> interactions = new TreeMap<>();
+    private final Map<String, Integer> descriptionCounts = new TreeMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final File pactDir;
+    private final String consumer;
+    private final String provider;
+    private Thread writer;
+
+    public PactRecorder(File pactDir, String consumer, String provider) {
+        this.pactDir = pactDir;
+        this.consumer = consumer;
+        this.provider = provider;
+    }
+
+    public synchronized void start() {
+        if (writer == null) {
+            writer = new Thread(this::drain, "pact-recorder");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    void record(RecordedExchange exchange) {
+        if (!queue.offer(exchange)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public File pactFile() {
+        return new File(pactDir, consumer + "-" + provider + ".json");
+    }
+
+    public synchronized int interactionCount() {
+        return interactions.size();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Waits for queued exchanges to be written, then stops the writer thread
+     */
+    @Override
+    public void close() {
+        Thread stopping;
+        // Joined outside the monitor, which the writer takes to add each exchange
+        synchronized (this) {
+            stopping = writer;
+            writer = null;
+        }
+        if (stopping == null) {
+            return;
+        }
+        try {
+            queue.put(SHUTDOWN);
+            stopping.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            System.out.println("Pact recorder dropped " + dropped.get() + " exchanges (queue full)");
+        }
+    }
+
+    private void drain() {
+        List<RecordedExchange> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+
+            boolean changed = false;
+            for (RecordedExchange exchange : batch) {
+                if (exchange == SHUTDOWN) {
+                    running = false;
+                } else {
+                    try {
+                        changed |= add(exchange);
+                    } catch (RuntimeException e) {
+                        // One unrecordable exchange mustn't stop the writer for the rest
+                        System.err.println("Failed to record " + exchange.method + " " + exchange.path + ": " + e);
+                    }
+                }
+            }
+            batch.clear();
+
+            if (changed) {
+                try {
+                    write();
+                } catch (IOException e) {
+                    System.err.println("Failed to write recorded pact: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean add(RecordedExchange exchange) {
+        JsonNode requestJson = parseJson(exchange.requestContentType, exchange.requestBody, exchange.requestTruncated);
+        JsonNode responseJson = parseJson(exchange.responseContentType, exchange.responseBody, exchange.responseTruncated);
+        String pathTemplate = pathTemplate(exchange.path);
+
+        String key = exchange.method + " " + pathTemplate
+            + " ?" + String.join("&", queryParameters(exchange.query).keySet())
+            + " -> " + exchange.status
+            + " | " + shape(requestJson) + " | " + shape(responseJson);
+
+        synchronized (this) {
+            if (interactions.containsKey(key)) {
+                return false;
+            }
+            interactions.put(key, toInteraction(exchange, pathTemplate, requestJson, responseJson));
+            return true;
+        }
+    }
+
+    private ObjectNode toInteraction(RecordedExchange exchange, String pathTemplate,
+                                     JsonNode requestJson, JsonNode responseJson) {
+        String description = exchange.method + " " + pathTemplate + " -> " + exchange.status;
+        int variant = descriptionCounts.merge(description, 1, Integer::sum);
+        if (variant > 1) {
+            description += " (variant " + variant + ")";
+        }
+
+        ObjectNode interaction = objectMapper.createObjectNode();
+        interaction.put("type", "Synchronous/HTTP");
+        interaction.put("description", description);
+        interaction.put("pending", false);
+        interaction.putObject("comments").putArray("text").add("Recorded by RecordingProxy");
+
+        ObjectNode request = interaction.putObject("request");
+        request.put("method", exchange.method);
+        request.put("path", exchange.path);
+        Map<String, List<String>> query = queryParameters(exchange.query);
+        if (!query.isEmpty()) {
+            ObjectNode queryNode = request.putObject("query");
+            query.forEach((name, values) -> values.forEach(queryNode.withArray(name)::add));
+        }
+        writeBody(request, exchange.requestContentType, exchange.requestBody, exchange.requestTruncated, requestJson);
+        if (!pathTemplate.equals(exchange.path)) {
+            request.putObject("matchingRules").putObject("path")
+                .put("combine", "AND")
+                .putArray("matchers").addObject()
+                .put("match", "regex")
+                .put("regex", pathTemplate.replace("{id}", "\\d+"));
+        }
+
+        ObjectNode response = interaction.putObject("response");
+        response.put("status", exchange.status);
+        writeBody(response, exchange.responseContentType, exchange.responseBody, exchange.responseTruncated, responseJson);
+        if (responseJson != null && (responseJson.isObject() || responseJson.isArray())) {
+            ObjectNode bodyRules = objectMapper.createObjectNode();
+            typeMatchers(responseJson, "$", bodyRules);
+            if (!bodyRules.isEmpty()) {
+                response.putObject("matchingRules").set("body", bodyRules);
+            }
+        }
+        return interaction;
+    }
+
+    private void writeBody(ObjectNode part, String contentType, byte[] body, boolean truncated, JsonNode json) {
+        if (contentType != null) {
+            part.putObject("headers").putArray("Content-Type").add(contentType);
+        }
+        if (body == null || body.length == 0 || truncated) {
+            return;
+        }
+        ObjectNode bodyNode = part.putObject("body");
+        if (json != null) {
+            bodyNode.set("content", json);
+        } else {
+            bodyNode.put("content", new String(body, StandardCharsets.UTF_8));
+        }
+        bodyNode.put("contentType", contentType != null ? contentType : "text/plain");
+        bodyNode.put("encoded", false);
+    }
+
+    private void typeMatchers(JsonNode node, String path, ObjectNode rules) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                typeMatchers(field.getValue(), path + "." + field.getKey(), rules);
+            }
+        } else if (node.isArray()) {
+            if (node.size() > 0) {
+                typeMatchers(node.get(0), path + "[*]", rules);
+            }
+        } else if (!node.isNull()) {
+            rules.putObject(path)
+                .put("combine", "AND")
+                .putArray("matchers").addObject().put("match", node.isNumber() ? (node.isIntegralNumber() ? "integer" : "decimal") : "type");
+        }
+    }
+
+    private synchronized void write() throws IOException {
+        ObjectNode pact = objectMapper.createObjectNode();
+        pact.putObject("consumer").put("name", consumer);
+        ArrayNode interactionArray = pact.putArray("interactions");
+        interactions.values().forEach(interactionArray::add);
+        ObjectNode metadata = pact.putObject("metadata");
+        metadata.putObject("pactSpecification").put("version", "4.0");
+        metadata.putObject("pact-jvm").put("version", "4.6.5");
+        pact.putObject("provider").put("name", provider);
+
+        pactDir.mkdirs();
+        Path target = pactFile().toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), pact);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private JsonNode parseJson(String contentType, byte[] body, boolean truncated) {
+        if (contentType == null || !contentType.contains("json") || body == null || body.length == 0 || truncated) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String shape(JsonNode node) {
+        if (node == null) {
+            return "-";
+        }
+        if (node.isObject()) {
+            StringBuilder shape = new StringBuilder("{");
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            names.sort(String::compareTo);
+            for (String name : names) {
+                shape.append(name).append(':').append(shape(node.get(name))).append(',');
+            }
+            return shape.append('}').toString();
+        }
+        if (node.isArray()) {
+            return "[" + (node.size() > 0 ? shape(node.get(0)) : "") + "]";
+        }
+        return node.getNodeType().name();
+    }
+
+    private static String pathTemplate(String path) {
+        String[] segments = path.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (NUMERIC_SEGMENT.matcher(segments[i]).matches()) {
+                segments[i] = "{id}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    // Decodes a raw query string once per name and value
+    private static Map<String, List<String>> queryParameters(String query) {
+        Map<String, List<String>> parameters = new TreeMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+}
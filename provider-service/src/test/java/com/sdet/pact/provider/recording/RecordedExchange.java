@@ -0,0 +1,35 @@
+package com.sdet.pact.provider.recording;
+
+/**
+ * Request/response pair captured by the {@link RecordingProxy}. Bodies hold at
+ * most the proxy's capture limit; {@code truncated} marks bodies that were
+ * streamed through in full but only partially captured.
+ */
+class RecordedExchange {
+    final String method;
+    final String path;
+    // Still percent-encoded, so an encoded '&' or '=' doesn't split a parameter
+    final String query;
+    final String requestContentType;
+    final byte[] requestBody;
+    final boolean requestTruncated;
+    final int status;
+    final String responseContentType;
+    final byte[] responseBody;
+    final boolean responseTruncated;
+
+    RecordedExchange(String method, String path, String query,
+                     String requestContentType, byte[] requestBody, boolean requestTruncated,
+                     int status, String responseContentType, byte[] responseBody, boolean responseTruncated) {
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.requestContentType = requestContentType;
+        this.requestBody = requestBody;
+        this.requestTruncated = requestTruncated;
+        this.status = status;
+        this.responseContentType = responseContentType;
+        this.responseBody = responseBody;
+        this.responseTruncated = responseTruncated;
+    }
+}
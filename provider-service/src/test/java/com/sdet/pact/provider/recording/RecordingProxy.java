@@ -0,0 +1,254 @@
+package com.sdet.pact.provider.recording;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording Proxy
+ *
+ * Reverse proxy that sits in front of a local provider (or one of the stubs)
+ * and turns the traffic passing through it into pact interactions.
+ *
+ * Bodies are streamed between client and upstream as they arrive; only the
+ * first {@code captureLimit} bytes of each body are copied aside for the
+ * {@link PactRecorder}, which does shape de-duplication and file writes on
+ * its own thread. The request path therefore only pays for the extra hop
+ * and a bounded in-memory copy.
+ *
+ * Standalone usage:
+ * <pre>
+ *   RecordingProxy &lt;listenPort&gt; &lt;upstreamUrl&gt; &lt;pactDir&gt; [consumer] [provider]
+ * </pre>
+ */
+public class RecordingProxy {
+
+    private static final int DEFAULT_CAPTURE_LIMIT = 64 * 1024;
+
+    // Managed by the HTTP stacks on either side, never forwarded
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+        "connection", "content-length", "date", "expect", "host", "keep-alive",
+        "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final int port;
+    private final URI upstream;
+    private final PactRecorder recorder;
+    private final int captureLimit;
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+
+    public RecordingProxy(int port, URI upstream, PactRecorder recorder) {
+        this(port, upstream, recorder, DEFAULT_CAPTURE_LIMIT);
+    }
+
+    public RecordingProxy(int port, URI upstream, PactRecorder recorder, int captureLimit) {
+        this.port = port;
+        this.upstream = upstream;
+        this.recorder = recorder;
+        this.captureLimit = captureLimit;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: RecordingProxy <listenPort> <upstreamUrl> <pactDir> [consumer] [provider]");
+            System.exit(1);
+        }
+        // Without TCP_NODELAY the JDK server's separate header/body writes stall on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        PactRecorder recorder = new PactRecorder(new File(args[2]),
+            args.length > 3 ? args[3] : "RecordedConsumer",
+            args.length > 4 ? args[4] : "RecordedProvider");
+        RecordingProxy proxy = new RecordingProxy(Integer.parseInt(args[0]), URI.create(args[1]), recorder);
+        Runtime.getRuntime().addShutdownHook(new Thread(proxy::stop));
+        proxy.start();
+    }
+
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/", this::handle);
+
+            executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            recorder.start();
+            server.start();
+            System.out.println("Recording Proxy started on port " + getPort() + " -> " + upstream);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start recording proxy", e);
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            // Handlers record after answering, so let them finish before the recorder stops taking exchanges
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorder.close();
+            System.out.println("Recording Proxy stopped");
+        }
+    }
+
+    /**
+     * Actual listening port, useful when the proxy was created with port 0
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        URI requestUri = exchange.getRequestURI();
+        String method = exchange.getRequestMethod();
+        String rawQuery = requestUri.getRawQuery();
+        URI target = upstream.resolve(requestUri.getRawPath() + (rawQuery != null ? "?" + rawQuery : ""));
+
+        Capture requestCapture = new Capture(captureLimit);
+        InputStream requestBody = new TeeInputStream(exchange.getRequestBody(), requestCapture);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+            .method(method, bodyPublisher(exchange, requestBody));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase())) {
+                for (String value : header.getValue()) {
+                    request.header(header.getKey(), value);
+                }
+            }
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] error = "{\"error\": \"Upstream unavailable\"}".getBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(502, error.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(error);
+            }
+            return;
+        }
+
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase()) && !header.getKey().startsWith(":")) {
+                exchange.getResponseHeaders().put(header.getKey(), header.getValue());
+            }
+        }
+
+        int status = response.statusCode();
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        boolean noBody = status == 204 || status == 304 || "HEAD".equals(method) || contentLength == 0;
+        exchange.sendResponseHeaders(status, noBody ? -1 : Math.max(contentLength, 0));
+
+        Capture responseCapture = new Capture(captureLimit);
+        try (InputStream in = response.body(); OutputStream out = exchange.getResponseBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                responseCapture.write(buffer, 0, read);
+            }
+        }
+
+        recorder.record(new RecordedExchange(
+            method, requestUri.getPath(), rawQuery,
+            exchange.getRequestHeaders().getFirst("Content-Type"), requestCapture.toByteArray(), requestCapture.truncated,
+            status, response.headers().firstValue("Content-Type").orElse(null),
+            responseCapture.toByteArray(), responseCapture.truncated));
+    }
+
+    private static HttpRequest.BodyPublisher bodyPublisher(HttpExchange exchange, InputStream body) {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        boolean chunked = "chunked".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+        if (contentLength != null) {
+            long length = Long.parseLong(contentLength.trim());
+            return length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> body), length);
+        }
+        return chunked ? HttpRequest.BodyPublishers.ofInputStream(() -> body) : HttpRequest.BodyPublishers.noBody();
+    }
+
+    /**
+     * Keeps the first {@code limit} bytes written to it and drops the rest
+     */
+    private static class Capture extends ByteArrayOutputStream {
+        private final int limit;
+        boolean truncated;
+
+        Capture(int limit) {
+            super(Math.min(limit, 1024));
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            int room = limit - count;
+            if (length > room) {
+                truncated = true;
+            }
+            if (room > 0) {
+                super.write(bytes, offset, Math.min(length, room));
+            }
+        }
+    }
+
+    /**
+     * Copies bytes into a {@link Capture} as the upstream request reads them
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final Capture capture;
+
+        TeeInputStream(InputStream in, Capture capture) {
+            super(in);
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                capture.write(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                capture.write(bytes, offset, read);
+            }
+            return read;
+        }
+    }
+}
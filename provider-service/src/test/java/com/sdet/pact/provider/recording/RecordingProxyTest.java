@@ -0,0 +1,122 @@
+package com.sdet.pact.provider.recording;
+
+import au.com.dius.pact.core.model.DefaultPactReader;
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.Pact;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.provider.stubs.UserProviderStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records traffic to the user stub through the proxy and checks that the
+ * resulting pact is de-duplicated by shape, keeps the query as sent and
+ * is loadable by pact-jvm
+ */
+@DisplayName("Recording Proxy Tests")
+public class RecordingProxyTest {
+
+    @TempDir
+    File pactDir;
+
+    private UserProviderStub providerStub;
+    private PactRecorder recorder;
+    private RecordingProxy proxy;
+
+    @BeforeEach
+    void setup() {
+        providerStub = new UserProviderStub(0);
+        providerStub.start();
+        providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+        providerStub.addUser(2, "Jane Smith", "jane.smith@example.com", "USER", true);
+        providerStub.enableUserCreation();
+
+        recorder = new PactRecorder(pactDir, "RecordedConsumer", "UserProvider");
+        proxy = new RecordingProxy(0, URI.create("http://localhost:" + providerStub.getPort()), recorder);
+        proxy.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        proxy.stop();
+        providerStub.stop();
+    }
+
+    @Test
+    @DisplayName("Should record one interaction per request shape")
+    void shouldRecordInteractionsByShape() throws Exception {
+        String baseUri = "http://localhost:" + proxy.getPort();
+
+        given().baseUri(baseUri).when().get("/api/users/1").then().statusCode(200).body("name", equalTo("John Doe"));
+        given().baseUri(baseUri).when().get("/api/users/2").then().statusCode(200);
+        given().baseUri(baseUri).when().get("/api/users/999").then().statusCode(404);
+        given().baseUri(baseUri)
+            .contentType("application/json")
+            .body("{\"name\": \"New User\", \"email\": \"new.user@example.com\", \"role\": \"USER\"}")
+        .when()
+            .post("/api/users")
+        .then()
+            .statusCode(201)
+            .body("name", equalTo("New User"));
+        given().baseUri(baseUri).when().delete("/api/users/2").then().statusCode(204);
+
+        proxy.stop();
+
+        Pact pact = DefaultPactReader.INSTANCE.loadPact(recorder.pactFile());
+        List<String> descriptions = pact.getInteractions().stream()
+            .map(Interaction::getDescription)
+            .sorted()
+            .collect(Collectors.toList());
+
+        assertEquals(List.of(
+            "DELETE /api/users/{id} -> 204",
+            "GET /api/users/{id} -> 200",
+            "GET /api/users/{id} -> 404",
+            "POST /api/users -> 201"), descriptions);
+        assertTrue(pact.isV4Pact());
+        assertEquals(0, recorder.droppedCount());
+
+        JsonNode metadata = new ObjectMapper().readTree(recorder.pactFile()).get("metadata");
+        assertEquals("4.0", metadata.path("pactSpecification").path("version").asText());
+        assertTrue(metadata.path("pact-jvm").has("version"), "metadata: " + metadata);
+    }
+
+    @Test
+    @DisplayName("Should record encoded query characters as sent")
+    void shouldRecordEncodedQuery() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + proxy.getPort() + "/api/users/1?plus=a%2Bb&amp=a%26b&eq=a%3Db&space=a+b");
+        assertEquals(200, client.send(HttpRequest.newBuilder(uri).GET().build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        proxy.stop();
+
+        Pact pact = DefaultPactReader.INSTANCE.loadPact(recorder.pactFile());
+        assertEquals(1, pact.getInteractions().size());
+        Map<String, List<String>> query = pact.getInteractions().get(0).asSynchronousRequestResponse()
+            .getRequest().getQuery();
+        assertEquals(Map.of(
+            "plus", List.of("a+b"),
+            "amp", List.of("a&b"),
+            "eq", List.of("a=b"),
+            "space", List.of("a b")), query);
+    }
+}
@@ -0,0 +1,246 @@
+package com.sdet.pact.provider.soak;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Samples the health of the current JVM during a soak run.
+ *
+ * Each {@link #sample()} closes an interval and reports the heap left after
+ * a full GC, bytes allocated per request, open file descriptors, and the
+ * latency percentiles and status classes of the requests recorded in the
+ * interval.
+ *
+ * Allocation is tracked from GC notifications (heap before each collection
+ * minus heap after the previous one) so it covers every thread, including
+ * short-lived pool threads. It is process-wide: the stub, its HTTP server
+ * and the load generator are all counted.
+ */
+public class SoakMonitor implements AutoCloseable {
+
+    private final long startNanos = System.nanoTime();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final List<NotificationEmitter> collectors = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGc;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+    // Guarded by this
+    private long allocatedBeforeLastGc;
+    private long heapAfterLastGc;
+    private long allocatedAtLastSample;
+    private long[] latencies = new long[4096];
+    private int latencyCount;
+    private long errors;
+    private final long[] statusClasses = new long[6];
+    private long unexpected;
+
+    public SoakMonitor() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        heapAfterLastGc = heapUsed();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(gcListener, null, null);
+                collectors.add(emitter);
+            }
+        }
+    }
+
+    public synchronized void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    /**
+     * Counts a response by status class, and as unexpected if the
+     * interaction it replays expects a different class
+     */
+    public synchronized void recordStatus(int status, boolean expected) {
+        statusClasses[Math.max(0, Math.min(status / 100, 5))]++;
+        if (!expected) {
+            unexpected++;
+        }
+    }
+
+    /**
+     * Counts a request that got no response at all
+     */
+    public synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * Closes the current interval. Forces a full GC to measure live heap.
+     */
+    public Sample sample() {
+        long[] interval;
+        long allocated;
+        long intervalErrors;
+        long[] intervalStatuses;
+        long intervalUnexpected;
+        synchronized (this) {
+            interval = Arrays.copyOf(latencies, latencyCount);
+            latencyCount = 0;
+            intervalErrors = errors;
+            errors = 0;
+            intervalStatuses = statusClasses.clone();
+            Arrays.fill(statusClasses, 0);
+            intervalUnexpected = unexpected;
+            unexpected = 0;
+            long total = allocatedBeforeLastGc + Math.max(0, heapUsed() - heapAfterLastGc);
+            allocated = Math.max(0, total - allocatedAtLastSample);
+            allocatedAtLastSample = Math.max(allocatedAtLastSample, total);
+        }
+
+        System.gc();
+        long heapAfterGc = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            heapAfterGc += usage != null ? usage.getUsed() : 0;
+        }
+
+        Arrays.sort(interval);
+        return new Sample(
+            (System.nanoTime() - startNanos) / 1e9,
+            interval.length,
+            intervalErrors,
+            intervalStatuses[2],
+            intervalStatuses[3],
+            intervalStatuses[4],
+            intervalStatuses[5],
+            intervalUnexpected,
+            heapAfterGc,
+            interval.length > 0 ? (double) allocated / interval.length : 0,
+            openFileDescriptors(),
+            percentileMillis(interval, 0.50),
+            percentileMillis(interval, 0.99));
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter collector : collectors) {
+            try {
+                collector.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // Already gone
+            }
+        }
+    }
+
+    private void onGc(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long before = heapTotal(info.getGcInfo().getMemoryUsageBeforeGc());
+        long after = heapTotal(info.getGcInfo().getMemoryUsageAfterGc());
+        synchronized (this) {
+            allocatedBeforeLastGc += Math.max(0, before - heapAfterLastGc);
+            heapAfterLastGc = after;
+        }
+    }
+
+    private long heapTotal(Map<String, MemoryUsage> usageByPool) {
+        long total = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = usageByPool.get(pool.getName());
+            total += usage != null ? usage.getUsed() : 0;
+        }
+        return total;
+    }
+
+    private long heapUsed() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            total += pool.getUsage().getUsed();
+        }
+        return total;
+    }
+
+    // -1 where the platform doesn't report it
+    private long openFileDescriptors() {
+        return os instanceof UnixOperatingSystemMXBean
+            ? ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount()
+            : -1;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    /**
+     * One sampling interval
+     */
+    public static class Sample {
+        public final double elapsedSeconds;
+        public final long requests;
+        public final long errors;
+        public final long status2xx;
+        public final long status3xx;
+        public final long status4xx;
+        public final long status5xx;
+        public final long unexpectedStatus;
+        public final long heapAfterGcBytes;
+        public final double allocatedBytesPerRequest;
+        public final long openFileDescriptors;
+        public final double p50Ms;
+        public final double p99Ms;
+
+        Sample(double elapsedSeconds, long requests, long errors, long status2xx, long status3xx,
+               long status4xx, long status5xx, long unexpectedStatus, long heapAfterGcBytes,
+               double allocatedBytesPerRequest, long openFileDescriptors, double p50Ms, double p99Ms) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.requests = requests;
+            this.errors = errors;
+            this.status2xx = status2xx;
+            this.status3xx = status3xx;
+            this.status4xx = status4xx;
+            this.status5xx = status5xx;
+            this.unexpectedStatus = unexpectedStatus;
+            this.heapAfterGcBytes = heapAfterGcBytes;
+            this.allocatedBytesPerRequest = allocatedBytesPerRequest;
+            this.openFileDescriptors = openFileDescriptors;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+        }
+
+        static String csvHeader() {
+            return "elapsed_s,requests,errors,status_2xx,status_3xx,status_4xx,status_5xx,unexpected_status,"
+                + "heap_after_gc_bytes,allocated_bytes_per_request,open_fds,p50_ms,p99_ms";
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%.1f,%d,%d,%d,%d,%d,%d,%d,%d,%.0f,%d,%.3f,%.3f", elapsedSeconds,
+                requests, errors, status2xx, status3xx, status4xx, status5xx, unexpectedStatus, heapAfterGcBytes,
+                allocatedBytesPerRequest, openFileDescriptors, p50Ms, p99Ms);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sdet.pact.provider.soak;
+
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.Pact;
+import au.com.dius.pact.core.model.ProviderState;
+import au.com.dius.pact.core.model.V4Interaction;
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdet.pact.provider.loader.IndexedPactLoader;
+import com.sdet.pact.provider.stubs.Tenants;
+import com.sdet.pact.provider.timing.LatencyBudgetVerifier;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Mixed CRUD workload replayed from a provider's pact interactions.
+ *
+ * Each step applies the interaction's provider states and sends its
+ * request. Clients walk the steps round-robin from different offsets, so
+ * reads, creates, updates and deletes interleave. Resources created by a
+ * POST are handed to {@code onCreated} to be removed again, keeping the
+ * stub's data set flat; anything that still grows over the run is a leak.
+ *
+ * Each workload runs in its own tenant: provider states are applied to
+ * that tenant and every request names it in {@code X-Stub-Tenant}, so
+ * concurrent clients never see each other's data and every response is
+ * deterministic. A response is counted by status class, and as unexpected
+ * when its class differs from the one the interaction's pact response has;
+ * requests without a response count as errors.
+ */
+public class SoakWorkload {
+
+    private final List<Step> steps;
+    private final IntConsumer onCreated;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+
+    private SoakWorkload(List<Step> steps, IntConsumer onCreated) {
+        this.steps = steps;
+        this.onCreated = onCreated;
+    }
+
+    /**
+     * Builds the workload from the pacts for {@code provider} in
+     * {@code pactFolder}, sending every request to {@code tenant}; every
+     * provider state used must have a handler, set up in the same tenant
+     */
+    public static SoakWorkload fromPacts(File pactFolder, String provider, HttpTestTarget target, String tenant,
+                                         Map<String, Runnable> stateHandlers, IntConsumer onCreated) throws IOException {
+        List<Step> steps = new ArrayList<>();
+        for (Pact pact : new IndexedPactLoader(pactFolder).load(provider)) {
+            for (Interaction interaction : pact.getInteractions()) {
+                if (!(interaction instanceof V4Interaction.SynchronousHttp)) {
+                    continue;
+                }
+                List<Runnable> states = new ArrayList<>();
+                for (ProviderState state : interaction.getProviderStates()) {
+                    Runnable handler = stateHandlers.get(state.getName());
+                    if (handler == null) {
+                        throw new IllegalStateException("No soak state handler for \"" + state.getName() + "\"");
+                    }
+                    states.add(handler);
+                }
+                HttpRequest request = HttpRequest.newBuilder(LatencyBudgetVerifier.toRequest(target,
+                        ((V4Interaction.SynchronousHttp) interaction).getRequest()), (name, value) -> true)
+                    .header(Tenants.HEADER, tenant)
+                    .build();
+                int expectedStatus = ((V4Interaction.SynchronousHttp) interaction).getResponse().getStatus();
+                steps.add(new Step(interaction.getDescription(), states, request, expectedStatus));
+            }
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalStateException("No HTTP interactions for " + provider + " in " + pactFolder
+                + "; run the consumer tests first");
+        }
+        return new SoakWorkload(steps, onCreated);
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    /**
+     * Runs steps from {@code offset} onwards until the deadline, recording
+     * into {@code monitor}
+     */
+    public void runUntil(long deadlineNanos, int offset, SoakMonitor monitor) throws InterruptedException {
+        for (int i = offset; System.nanoTime() - deadlineNanos < 0; i++) {
+            Step step = steps.get(Math.floorMod(i, steps.size()));
+            step.states.forEach(Runnable::run);
+
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                response = client.send(step.request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                monitor.recordError();
+                continue;
+            }
+            monitor.recordLatency(System.nanoTime() - start);
+            monitor.recordStatus(response.statusCode(), response.statusCode() / 100 == step.expectedStatus / 100);
+
+            if (response.statusCode() == 201 && "POST".equals(step.request.method())) {
+                removeCreated(response.body());
+            }
+        }
+    }
+
+    private void removeCreated(byte[] body) {
+        try {
+            JsonNode id = objectMapper.readTree(body).get("id");
+            if (id != null && id.canConvertToInt()) {
+                onCreated.accept(id.asInt());
+            }
+        } catch (IOException e) {
+            // Not JSON; nothing to clean up
+        }
+    }
+
+    private static class Step {
+        final String description;
+        final List<Runnable> states;
+        final HttpRequest request;
+        final int expectedStatus;
+
+        Step(String description, List<Runnable> states, HttpRequest request, int expectedStatus) {
+            this.description = description;
+            this.states = states;
+            this.request = request;
+            this.expectedStatus = expectedStatus;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.sdet.pact.provider.soak;
+
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+import com.sdet.pact.provider.stubs.ProductProviderStub;
+import com.sdet.pact.provider.stubs.ProductSetup;
+import com.sdet.pact.provider.stubs.UserProviderStub;
+import com.sdet.pact.provider.stubs.UserSetup;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soak tests for the provider stubs
+ *
+ * Drives each stub with its pact interactions from several clients for
+ * {@code soak.duration} (ISO-8601, default {@code PT10M}) and fails:
+ * - on any transport error or 5xx response
+ * - on any response with a different status class than its pact
+ *   interaction, e.g. a 404 for a read the contract expects to succeed.
+ *   Each client runs in its own tenant, so none of them can be explained
+ *   away by another client's writes
+ * - if, after {@code soak.warmup}, heap after GC, allocation per request,
+ *   open file descriptors or p50/p99 latency trend upwards past their
+ *   threshold. A trend has to exceed both the relative drift and the
+ *   absolute delta to fail; see {@link Trend#exceeds}.
+ *
+ * Samples, status classes included, are written as CSV to
+ * {@code soak.reportDir}.
+ *
+ * Excluded from the normal build; run with {@code mvn -pl provider-service
+ * -Psoak test -Dsoak.duration=PT30M}.
+ */
+@Tag("soak")
+@DisplayName("Stub Soak Tests")
+public class StubSoakTest {
+
+    private static final File PACT_FOLDER = new File("../consumer-service/target/pacts");
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("soak.duration", "PT10M"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("soak.warmup", "PT20S"));
+    private static final Duration SAMPLE_INTERVAL = Duration.parse(System.getProperty("soak.sampleInterval", "PT5S"));
+    private static final int CLIENTS = Integer.getInteger("soak.clients", 4);
+
+    @Test
+    @DisplayName("User stub should stay flat under a sustained pact workload")
+    void userStubSoak() throws Exception {
+        UserProviderStub stub = new UserProviderStub(0);
+        stub.start();
+        try {
+            HttpTestTarget target = new HttpTestTarget("localhost", stub.getPort());
+            assertStable("user-stub", soak(tenant -> {
+                UserSetup setup = stub.tenant(tenant);
+                return SoakWorkload.fromPacts(PACT_FOLDER, "UserProvider", target, tenant, Map.of(
+                    "User with ID 1 exists",
+                    () -> setup.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true),
+                    "User with ID 999 does not exist", () -> setup.removeUser(999),
+                    "User creation is allowed", setup::enableUserCreation
+                ), setup::removeUser);
+            }));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Product stub should stay flat under a sustained pact workload")
+    void productStubSoak() throws Exception {
+        ProductProviderStub stub = new ProductProviderStub(0);
+        stub.start();
+        try {
+            HttpTestTarget target = new HttpTestTarget("localhost", stub.getPort());
+            assertStable("product-stub", soak(tenant -> {
+                ProductSetup setup = stub.tenant(tenant);
+                return SoakWorkload.fromPacts(PACT_FOLDER, "ProductProvider", target, tenant, Map.of(
+                    "Products exist in the system", () -> {
+                        setup.addProduct(1, "Laptop", 999.99, "Electronics", true);
+                        setup.addProduct(2, "Mouse", 29.99, "Accessories", true);
+                    },
+                    "Product with ID 1 exists", () -> {
+                        setup.addProduct(1, "Laptop", 999.99, "Electronics", true);
+                        setup.addProductDetails(1, "TechCorp", "2 years", 50);
+                    }
+                ), setup::removeProduct);
+            }));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * Builds one client's workload, with its provider states set up in
+     * {@code tenant}
+     */
+    private interface TenantWorkload {
+        SoakWorkload forTenant(String tenant) throws IOException;
+    }
+
+    private static List<SoakMonitor.Sample> soak(TenantWorkload tenantWorkload) throws Exception {
+        List<SoakMonitor.Sample> samples = new ArrayList<>();
+        List<SoakWorkload> workloads = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            workloads.add(tenantWorkload.forTenant("soak-client-" + i));
+        }
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        try (SoakMonitor monitor = new SoakMonitor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                SoakWorkload workload = workloads.get(i);
+                // Different offsets, so the stub sees reads and writes interleaved
+                int offset = i * workload.size() / CLIENTS;
+                running.add(clients.submit(() -> {
+                    workload.runUntil(deadline, offset, monitor);
+                    return null;
+                }));
+            }
+            while (System.nanoTime() - deadline < 0) {
+                long remaining = deadline - System.nanoTime();
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, Math.min(SAMPLE_INTERVAL.toNanos(), remaining)));
+                samples.add(monitor.sample());
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return samples;
+    }
+
+    private static void assertStable(String name, List<SoakMonitor.Sample> samples) throws IOException {
+        writeReport(name, samples);
+
+        long errors = samples.stream().mapToLong(sample -> sample.errors).sum();
+        long serverErrors = samples.stream().mapToLong(sample -> sample.status5xx).sum();
+        assertEquals(0, errors, name + ": transport errors during soak");
+        assertEquals(0, serverErrors, name + ": 5xx responses during soak");
+
+        long responses = samples.stream().mapToLong(sample -> sample.requests).sum();
+        long unexpected = samples.stream().mapToLong(sample -> sample.unexpectedStatus).sum();
+        System.out.printf(Locale.ROOT, "Soak statuses for %s: 2xx %d, 3xx %d, 4xx %d, 5xx %d, unexpected %d%n",
+            name, samples.stream().mapToLong(sample -> sample.status2xx).sum(),
+            samples.stream().mapToLong(sample -> sample.status3xx).sum(),
+            samples.stream().mapToLong(sample -> sample.status4xx).sum(), serverErrors, unexpected);
+        assertEquals(0, unexpected, String.format(Locale.ROOT,
+            "%s: %d of %d responses had a different status class than their interaction",
+            name, unexpected, responses));
+
+        List<SoakMonitor.Sample> measured = new ArrayList<>();
+        for (SoakMonitor.Sample sample : samples) {
+            if (sample.elapsedSeconds >= WARMUP.getSeconds() && sample.requests > 0) {
+                measured.add(sample);
+            }
+        }
+        assertTrue(measured.size() >= 3, name + ": need at least 3 samples after warm-up, got " + measured.size()
+            + "; increase soak.duration or lower soak.sampleInterval");
+
+        List<String> regressions = new ArrayList<>();
+        check(regressions, Trend.fit("heap after GC (MB)", measured, s -> s.heapAfterGcBytes / 1048576.0),
+            "soak.heap.maxDrift", 0.25, "soak.heap.minDeltaMb", 8);
+        check(regressions, Trend.fit("allocated per request (KB)", measured, s -> s.allocatedBytesPerRequest / 1024),
+            "soak.allocation.maxDrift", 0.5, "soak.allocation.minDeltaKb", 4);
+        if (measured.get(0).openFileDescriptors >= 0) {
+            check(regressions, Trend.fit("open file descriptors", measured, s -> s.openFileDescriptors),
+                "soak.fd.maxDrift", 0.2, "soak.fd.minDelta", 4);
+        }
+        check(regressions, Trend.fit("p50 latency (ms)", measured, s -> s.p50Ms),
+            "soak.latency.maxDrift", 1.0, "soak.latency.minDeltaMs", 5);
+        check(regressions, Trend.fit("p99 latency (ms)", measured, s -> s.p99Ms),
+            "soak.latency.maxDrift", 1.0, "soak.latency.minDeltaMs", 5);
+
+        assertTrue(regressions.isEmpty(), name + " degraded over the soak: " + String.join("; ", regressions));
+    }
+
+    private static void check(List<String> regressions, Trend trend,
+                              String driftProperty, double defaultDrift, String deltaProperty, double defaultDelta) {
+        double maxDrift = Double.parseDouble(System.getProperty(driftProperty, String.valueOf(defaultDrift)));
+        double minDelta = Double.parseDouble(System.getProperty(deltaProperty, String.valueOf(defaultDelta)));
+        System.out.println("Soak trend " + trend);
+        if (trend.exceeds(maxDrift, minDelta)) {
+            regressions.add(trend + " (limit +" + Math.round(maxDrift * 100) + "% and +" + minDelta + ")");
+        }
+    }
+
+    private static void writeReport(String name, List<SoakMonitor.Sample> samples) throws IOException {
+        File reportDir = new File(System.getProperty("soak.reportDir", "target/soak"));
+        reportDir.mkdirs();
+        File report = new File(reportDir, name + ".csv");
+        try (PrintWriter writer = new PrintWriter(report)) {
+            writer.println(SoakMonitor.Sample.csvHeader());
+            samples.forEach(sample -> writer.println(sample.toCsv()));
+        }
+        System.out.println("Soak samples for " + name + " written to " + report);
+    }
+}
@@ -0,0 +1,71 @@
+package com.sdet.pact.provider.soak;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Least-squares line through a metric's samples over time.
+ *
+ * Judging the fitted line rather than first and last samples keeps a
+ * single GC pause or noisy interval from failing a run, while steady
+ * growth (a leak, a cache without a bound, latency creeping up with data
+ * size) still shows.
+ */
+public class Trend {
+
+    public final String metric;
+    public final double start;
+    public final double end;
+
+    private Trend(String metric, double start, double end) {
+        this.metric = metric;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static Trend fit(String metric, List<SoakMonitor.Sample> samples, ToDoubleFunction<SoakMonitor.Sample> value) {
+        int n = samples.size();
+        double meanX = 0;
+        double meanY = 0;
+        for (SoakMonitor.Sample sample : samples) {
+            meanX += sample.elapsedSeconds / n;
+            meanY += value.applyAsDouble(sample) / n;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (SoakMonitor.Sample sample : samples) {
+            double dx = sample.elapsedSeconds - meanX;
+            covariance += dx * (value.applyAsDouble(sample) - meanY);
+            variance += dx * dx;
+        }
+        double slope = variance > 0 ? covariance / variance : 0;
+        double firstX = samples.get(0).elapsedSeconds;
+        double lastX = samples.get(n - 1).elapsedSeconds;
+        return new Trend(metric, meanY + slope * (firstX - meanX), meanY + slope * (lastX - meanX));
+    }
+
+    public double growth() {
+        return end - start;
+    }
+
+    /**
+     * Fitted growth relative to the fitted starting value
+     */
+    public double drift() {
+        return start > 0 ? growth() / start : 0;
+    }
+
+    /**
+     * Same rule as the timing regression gate: a metric has regressed only
+     * if it grew both by more than {@code maxDrift} and by more than
+     * {@code minDelta} in absolute terms
+     */
+    public boolean exceeds(double maxDrift, double minDelta) {
+        return drift() > maxDrift && growth() > minDelta;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.2f -> %.2f (%+.0f%%)", metric, start, end, drift() * 100);
+    }
+}
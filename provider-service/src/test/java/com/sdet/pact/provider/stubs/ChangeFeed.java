@@ -0,0 +1,416 @@
+package com.sdet.pact.provider.stubs;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change Feed
+ *
+ * Server-sent event stream of create/update/delete events for a stub,
+ * served from {@code GET /api/<resource>/changes}.
+ *
+ * Events live in a bounded ring buffer of the last {@code capacity} changes,
+ * each with a monotonically increasing ID. A client that reconnects with
+ * {@code Last-Event-ID} (header, or {@code lastEventId} query parameter for
+ * the first connect) gets everything after that ID; if it fell further
+ * behind than the buffer reaches it gets a {@code reset} event and should
+ * re-read the resource before applying further changes. Without an ID the
+ * stream starts at the next change. Either way the response's
+ * {@code Last-Event-ID} header is the ID the stream starts after, so a
+ * client that connected without one can still resume without a gap.
+ *
+ * Subscribers don't get a thread each: the HTTP handler only sends the
+ * response headers and parks the exchange, and a single broadcaster thread
+ * hands new events for every open stream, plus a keepalive comment for idle
+ * ones so dead connections are noticed, to a small fixed pool of writer
+ * threads ({@code -Dstub.feedWriters}, default 2). The broadcaster never
+ * writes itself, and each subscriber has at most one write in flight. The
+ * ring is the only backlog: a subscriber is dropped (its write is
+ * interrupted, which closes the connection) when the ring moves past its
+ * position while a write is still in flight, or when one write has taken
+ * longer than {@code -Dstub.feedWriteTimeoutMillis} (default 5000), so a
+ * stuck client holds a writer for at most that long. A dropped subscriber
+ * gets a {@code reset} when it resumes.
+ */
+public class ChangeFeed implements AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long KEEPALIVE_MILLIS = 15_000;
+    private static final int DEFAULT_WRITERS = 2;
+    private static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 5_000;
+
+    private final Event[] ring;
+    private final ConcurrentLinkedQueue<Subscriber> joining = new ConcurrentLinkedQueue<>();
+    private final List<Subscriber> subscribers = new ArrayList<>();  // broadcaster thread only
+    private final String name;
+    private final int writerThreads;
+    private final long writeTimeoutMillis;
+    private long nextId = 1;
+    private boolean running;
+    private Thread broadcaster;
+    private ExecutorService writers;
+
+    public ChangeFeed(String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    public ChangeFeed(String name, int capacity) {
+        this(name, capacity, Integer.getInteger("stub.feedWriters", DEFAULT_WRITERS),
+            Long.getLong("stub.feedWriteTimeoutMillis", DEFAULT_WRITE_TIMEOUT_MILLIS));
+    }
+
+    public ChangeFeed(String name, int capacity, int writerThreads, long writeTimeoutMillis) {
+        this.name = name;
+        this.ring = new Event[capacity];
+        this.writerThreads = writerThreads;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    public synchronized void start() {
+        if (broadcaster == null) {
+            running = true;
+            writers = Executors.newFixedThreadPool(writerThreads, task -> {
+                Thread writer = new Thread(task, name + "-change-feed-writer");
+                writer.setDaemon(true);
+                return writer;
+            });
+            ExecutorService pool = writers;
+            broadcaster = new Thread(() -> broadcast(pool), name + "-change-feed");
+            broadcaster.setDaemon(true);
+            broadcaster.start();
+        }
+    }
+
+    /**
+     * Appends an event and wakes the broadcaster; never blocks on subscribers
+     */
+    public synchronized void publish(String type, String json) {
+        ring[(int) (nextId % ring.length)] = new Event(nextId, type, json);
+        nextId++;
+        notifyAll();
+    }
+
+    /**
+     * Drops buffered events (IDs keep increasing), so every subscriber,
+     * including ones resuming later, is told to re-read the resource
+     */
+    public synchronized void reset() {
+        Arrays.fill(ring, null);
+        publish("reset", "{}");
+    }
+
+    /**
+     * HTTP handler for the stream endpoint
+     */
+    public void subscribe(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            byte[] error = "{\"error\": \"Method not allowed\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(405, error.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(error);
+            }
+            return;
+        }
+
+        // Fix the starting position before the client sees the response, so
+        // nothing published after it connected can be missed
+        long cursor = lastEventId(exchange);
+        synchronized (this) {
+            if (cursor < 0) {
+                cursor = nextId - 1;
+            }
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().add("Last-Event-ID", String.valueOf(cursor));
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        out.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        Subscriber subscriber = new Subscriber(exchange, out);
+        subscriber.cursor = cursor;
+        synchronized (this) {
+            joining.add(subscriber);
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        ExecutorService pool;
+        synchronized (this) {
+            running = false;
+            thread = broadcaster;
+            pool = writers;
+            broadcaster = null;
+            writers = null;
+            notifyAll();
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            // Never blocked on a subscriber, so this is quick; once it has
+            // exited the subscriber lists are ours
+            thread.join();
+
+            List<Subscriber> open = new ArrayList<>(subscribers);
+            open.addAll(joining);
+            subscribers.clear();
+            joining.clear();
+            synchronized (this) {
+                for (Subscriber subscriber : open) {
+                    subscriber.drop();
+                    // Closing writes the final chunk, so it goes through a writer like any other write
+                    if (!subscriber.busy) {
+                        subscriber.busy = true;
+                        pool.execute(() -> write(subscriber, ""));
+                    }
+                }
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void broadcast(ExecutorService pool) {
+        while (true) {
+            synchronized (this) {
+                if (running && joining.isEmpty() && !hasWork()) {
+                    try {
+                        // Woken by publishes and finished writes; the timeout is for keepalives and stuck writes
+                        wait(Math.min(KEEPALIVE_MILLIS, writeTimeoutMillis));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+            }
+
+            for (Subscriber subscriber; (subscriber = joining.poll()) != null; ) {
+                subscribers.add(subscriber);
+            }
+
+            long now = System.currentTimeMillis();
+            Iterator<Subscriber> it = subscribers.iterator();
+            while (it.hasNext()) {
+                Subscriber subscriber = it.next();
+                String frame;
+                synchronized (this) {
+                    if (subscriber.dropped) {
+                        // Its writer has closed the stream, or is closing it
+                        it.remove();
+                        continue;
+                    }
+                    if (subscriber.busy) {
+                        if (subscriber.cursor < oldest() - 1 || overdue(subscriber, now)) {
+                            // Still writing events the ring no longer holds, or stuck in one
+                            // write and holding a writer thread: too slow to keep
+                            subscriber.drop();
+                            it.remove();
+                        }
+                        continue;
+                    }
+                    frame = pendingFrame(subscriber);
+                    if (frame == null && now - subscriber.lastWrite >= KEEPALIVE_MILLIS) {
+                        frame = ": keepalive\n\n";
+                    }
+                    if (frame == null) {
+                        continue;
+                    }
+                    subscriber.busy = true;
+                }
+                String handedOver = frame;
+                try {
+                    pool.execute(() -> write(subscriber, handedOver));
+                } catch (RejectedExecutionException e) {
+                    // Closing; close() takes over the subscribers
+                    synchronized (this) {
+                        subscriber.busy = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    // Broadcaster thread only, like the subscriber list
+    private synchronized boolean hasWork() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            boolean behind = subscriber.busy
+                ? subscriber.cursor < oldest() - 1 || overdue(subscriber, now)
+                : subscriber.cursor != nextId - 1;
+            if (subscriber.dropped || behind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A write queued for a free writer isn't overdue; one a writer has been on too long is
+    private boolean overdue(Subscriber subscriber, long now) {
+        long started = subscriber.writeStarted;
+        return started != 0 && now - started >= writeTimeoutMillis;
+    }
+
+    private long oldest() {
+        return Math.max(1, nextId - ring.length);
+    }
+
+    /**
+     * Runs on a writer thread, then lets the broadcaster hand the subscriber
+     * its next frame
+     */
+    private void write(Subscriber subscriber, String frame) {
+        subscriber.send(frame);
+        synchronized (this) {
+            subscriber.busy = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Everything the subscriber hasn't been handed yet, as one frame; null if there's nothing new
+     */
+    private synchronized String pendingFrame(Subscriber subscriber) {
+        List<Event> events = new ArrayList<>();
+        long latest = nextId - 1;
+        long oldest = oldest();
+        // Cursor fell out of the buffer, or points past the end (provider restarted)
+        boolean lost = subscriber.cursor < oldest - 1 || subscriber.cursor > latest;
+        long from = lost ? oldest : subscriber.cursor + 1;
+        for (long id = from; id <= latest; id++) {
+            Event event = ring[(int) (id % ring.length)];
+            if (event != null && event.id == id) {
+                events.add(event);
+            }
+        }
+        subscriber.cursor = latest;
+        if (!lost && events.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder frame = new StringBuilder();
+        if (lost) {
+            frame.append("event: reset\ndata: {}\n\n");
+        }
+        for (Event event : events) {
+            frame.append("id: ").append(event.id).append('\n')
+                .append("event: ").append(event.type).append('\n')
+                .append("data: ").append(event.json).append("\n\n");
+        }
+        return frame.toString();
+    }
+
+    private static long lastEventId(HttpExchange exchange) {
+        String id = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        String query = exchange.getRequestURI().getQuery();
+        if (id == null && query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("lastEventId=")) {
+                    id = pair.substring("lastEventId=".length());
+                }
+            }
+        }
+        try {
+            return id != null ? Long.parseLong(id.trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static class Event {
+        final long id;
+        final String type;
+        final String json;
+
+        Event(long id, String type, String json) {
+            this.id = id;
+            this.type = type;
+            this.json = json;
+        }
+    }
+
+    private static class Subscriber {
+        final HttpExchange exchange;
+        final OutputStream out;
+        // Guarded by the feed: last event handed to a writer, and whether a write is in flight
+        long cursor;
+        boolean busy;
+        volatile boolean dropped;
+        volatile long lastWrite = System.currentTimeMillis();
+        // When the write in flight reached a writer thread, 0 if none has
+        volatile long writeStarted;
+        // Guarded by this: the thread writing to the stream, if any
+        private Thread writer;
+
+        Subscriber(HttpExchange exchange, OutputStream out) {
+            this.exchange = exchange;
+            this.out = out;
+        }
+
+        /**
+         * Writes the frame, or closes the stream once the subscriber has
+         * been dropped. The exchange's channel is blocking, so interrupting
+         * a stuck write closes the connection and frees the thread.
+         */
+        void send(String frame) {
+            synchronized (this) {
+                writer = Thread.currentThread();
+                writeStarted = System.currentTimeMillis();
+            }
+            try {
+                if (!dropped) {
+                    try {
+                        out.write(frame.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        lastWrite = System.currentTimeMillis();
+                        return;
+                    } catch (IOException e) {
+                        // Client went away, or drop() interrupted the write
+                        dropped = true;
+                    }
+                }
+                // Still interruptible: closing writes the final chunk
+                exchange.close();
+            } finally {
+                synchronized (this) {
+                    writer = null;
+                    writeStarted = 0;
+                    // An interrupt aimed at this write must not hit the thread's next task
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        synchronized void drop() {
+            dropped = true;
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+}
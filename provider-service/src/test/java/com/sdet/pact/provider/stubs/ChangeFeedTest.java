@@ -0,0 +1,241 @@
+package com.sdet.pact.provider.stubs;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Subscribes to the user stub's change feed and checks live delivery,
+ * fan-out, resume from Last-Event-ID and that a stuck client holds up
+ * nobody else, whether it falls out of the ring or just stops reading
+ */
+@DisplayName("Change Feed Tests")
+public class ChangeFeedTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<BufferedReader> streams = new ArrayList<>();
+    private UserProviderStub providerStub;
+    private URI feedUri;
+
+    @BeforeEach
+    void setup() {
+        providerStub = new UserProviderStub(0);
+        providerStub.start();
+        feedUri = URI.create("http://localhost:" + providerStub.getPort() + "/api/users/changes");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (BufferedReader stream : streams) {
+            stream.close();
+        }
+        providerStub.stop();
+    }
+
+    @Test
+    @DisplayName("Should push changes to every subscriber")
+    void shouldFanOutChanges() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<BufferedReader> subscribers = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                subscribers.add(subscribe(null));
+            }
+
+            providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+            providerStub.removeUser(1);
+
+            for (BufferedReader subscriber : subscribers) {
+                Map<String, String> created = nextEvent(subscriber);
+                assertEquals("user.created", created.get("event"));
+                assertTrue(created.get("data").contains("\"name\":\"John Doe\""));
+                assertEquals("user.deleted", nextEvent(subscriber).get("event"));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should resume after Last-Event-ID")
+    void shouldResumeFromLastEventId() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            BufferedReader first = subscribe(null);
+            providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+            String seen = nextEvent(first).get("id");
+
+            // Changes made while the client is disconnected
+            providerStub.addUser(1, "John Updated", "john.updated@example.com", "ADMIN", true);
+            providerStub.addUser(2, "Jane Smith", "jane.smith@example.com", "USER", true);
+
+            BufferedReader resumed = subscribe(seen);
+            Map<String, String> updated = nextEvent(resumed);
+            assertEquals("user.updated", updated.get("event"));
+            assertEquals(Long.parseLong(seen) + 1, Long.parseLong(updated.get("id")));
+            assertEquals("user.created", nextEvent(resumed).get("event"));
+        });
+    }
+
+    @Test
+    @DisplayName("Should tell clients to resync when their position is gone")
+    void shouldSendResetForUnknownPosition() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+
+            BufferedReader fromTheFuture = subscribe("1000000");
+            assertEquals("reset", nextEvent(fromTheFuture).get("event"));
+        });
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber that never reads without holding up the others")
+    void shouldDropSubscriberThatNeverReads() {
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            try (Socket stuck = new Socket()) {
+                // A tiny receive window fills after a few events, and nothing ever drains it
+                stuck.setReceiveBufferSize(1024);
+                stuck.connect(new InetSocketAddress("localhost", providerStub.getPort()));
+                stuck.getOutputStream().write(("GET /api/users/changes HTTP/1.1\r\n"
+                    + "Host: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                BufferedReader stuckStream = new BufferedReader(
+                    new InputStreamReader(stuck.getInputStream(), StandardCharsets.US_ASCII));
+                while (!": connected".equals(stuckStream.readLine())) {
+                    // Response headers; from here on the client stops reading
+                }
+
+                // Far more than the socket buffers plus the 1024-event ring hold, in
+                // batches the live subscriber reads in full before the next one
+                BufferedReader live = subscribe(null);
+                String name = "x".repeat(16_000);
+                long expectedId = -1;
+                for (int batch = 0; batch < 20; batch++) {
+                    for (int i = 0; i < 100; i++) {
+                        providerStub.addUser(1, name, "john.doe@example.com", "ADMIN", true);
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        Map<String, String> event = nextEvent(live);
+                        assertTrue(event.get("event").startsWith("user."), "Live subscriber got " + event.get("event"));
+                        long id = Long.parseLong(event.get("id"));
+                        if (expectedId >= 0) {
+                            assertEquals(expectedId, id);
+                        }
+                        expectedId = id + 1;
+                    }
+                }
+
+                // Fell out of the ring while its write was stuck: the stub closes the connection
+                InputStream stuckIn = stuck.getInputStream();
+                byte[] buffer = new byte[64 * 1024];
+                while (stuckIn.read(buffer) != -1) {
+                    // Whatever was in flight when it was dropped
+                }
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber stuck in one write past the timeout and free its writer")
+    void shouldDropSubscriberStuckPastWriteTimeout() throws Exception {
+        // One writer thread, so the live subscriber only hears anything once the stuck write is given up
+        ChangeFeed feed = new ChangeFeed("timeout", 1024, 1, 500);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/changes", feed::subscribe);
+        server.setExecutor(Executors.newCachedThreadPool());
+        feed.start();
+        server.start();
+        try {
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                try (Socket stuck = new Socket()) {
+                    stuck.setReceiveBufferSize(1024);
+                    stuck.connect(server.getAddress());
+                    stuck.getOutputStream().write(("GET /changes HTTP/1.1\r\n"
+                        + "Host: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    BufferedReader stuckStream = new BufferedReader(
+                        new InputStreamReader(stuck.getInputStream(), StandardCharsets.US_ASCII));
+                    while (!": connected".equals(stuckStream.readLine())) {
+                        // Response headers; from here on the client stops reading
+                    }
+
+                    // More than the socket buffers hold, but well inside the ring
+                    String json = "{\"name\":\"" + "x".repeat(16_000) + "\"}";
+                    for (int i = 0; i < 500; i++) {
+                        feed.publish("user.updated", json);
+                    }
+
+                    URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/changes");
+                    BufferedReader live = subscribe(uri, null);
+                    feed.publish("user.created", "{}");
+                    assertEquals("user.created", nextEvent(live).get("event"));
+
+                    InputStream stuckIn = stuck.getInputStream();
+                    byte[] buffer = new byte[64 * 1024];
+                    while (stuckIn.read(buffer) != -1) {
+                        // Whatever was in flight when it was dropped
+                    }
+                }
+            });
+        } finally {
+            server.stop(0);
+            feed.close();
+        }
+    }
+
+    private BufferedReader subscribe(String lastEventId) throws Exception {
+        return subscribe(feedUri, lastEventId);
+    }
+
+    private BufferedReader subscribe(URI uri, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElse(null));
+
+        BufferedReader stream = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+        streams.add(stream);
+        return stream;
+    }
+
+    // Reads "field: value" lines up to the next blank line, skipping comment-only blocks
+    private static Map<String, String> nextEvent(BufferedReader stream) throws IOException {
+        Map<String, String> event = new HashMap<>();
+        String line;
+        while ((line = stream.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                event.put(line.substring(0, colon), line.substring(colon + 1).trim());
+            }
+        }
+        throw new IOException("Stream closed");
+    }
+}
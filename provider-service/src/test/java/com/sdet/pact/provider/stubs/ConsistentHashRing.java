@@ -0,0 +1,50 @@
+package com.sdet.pact.provider.stubs;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping entity IDs to shard indexes.
+ *
+ * Every shard owns a number of virtual nodes so IDs spread evenly. The ring
+ * is a pure function of the shard count, which lets the router and each
+ * shard process build identical rings without talking to each other.
+ */
+public class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+    private final int shardCount;
+
+    public ConsistentHashRing(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring.put(mix(shard * 0x10000 + node + 0x5bd1e995), shard);
+            }
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(int id) {
+        Map.Entry<Integer, Integer> entry = ring.ceilingEntry(mix(id));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    // MurmurHash3 finalizer: cheap, well-distributed 32-bit mixing
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sdet.pact.provider.stubs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the ring spreads IDs evenly and that changing the shard count
+ * only moves the IDs it has to
+ */
+@DisplayName("Consistent Hash Ring Tests")
+public class ConsistentHashRingTest {
+
+    private static final int IDS = 100_000;
+
+    @Test
+    @DisplayName("Should spread IDs evenly over the shards")
+    void shouldSpreadIdsEvenly() {
+        for (int shardCount = 2; shardCount <= 8; shardCount++) {
+            ConsistentHashRing ring = new ConsistentHashRing(shardCount);
+            int[] owned = new int[shardCount];
+            for (int id = 1; id <= IDS; id++) {
+                owned[ring.shardFor(id)]++;
+            }
+
+            double fair = (double) IDS / shardCount;
+            for (int shard = 0; shard < shardCount; shard++) {
+                double share = owned[shard] / fair;
+                assertTrue(share > 0.8 && share < 1.2, String.format(
+                    "Shard %d of %d owns %.2fx its fair share", shard, shardCount, share));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should only move IDs to an added shard")
+    void shouldOnlyMoveIdsToAddedShard() {
+        for (int shardCount = 1; shardCount < 8; shardCount++) {
+            ConsistentHashRing before = new ConsistentHashRing(shardCount);
+            ConsistentHashRing after = new ConsistentHashRing(shardCount + 1);
+            int moved = 0;
+            for (int id = 1; id <= IDS; id++) {
+                int from = before.shardFor(id);
+                int to = after.shardFor(id);
+                if (from != to) {
+                    assertEquals(shardCount, to, "ID " + id + " moved between existing shards");
+                    moved++;
+                }
+            }
+
+            // Roughly the new shard's fair share moves, nothing more
+            double movedShare = (double) moved / IDS * (shardCount + 1);
+            assertTrue(movedShare > 0.8 && movedShare < 1.2, String.format(
+                "Adding shard %d moved %.2fx its fair share", shardCount, movedShare));
+        }
+    }
+
+    @Test
+    @DisplayName("Should only move the removed shard's IDs")
+    void shouldOnlyMoveRemovedShardsIds() {
+        ConsistentHashRing before = new ConsistentHashRing(5);
+        ConsistentHashRing after = new ConsistentHashRing(4);
+        for (int id = 1; id <= IDS; id++) {
+            int from = before.shardFor(id);
+            if (from != 4) {
+                assertEquals(from, after.shardFor(id), "ID " + id + " left a shard that stayed");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should map every ID, negative ones included, for a single shard")
+    void shouldMapEverythingToSingleShard() {
+        ConsistentHashRing ring = new ConsistentHashRing(1);
+        for (int id : new int[] {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE}) {
+            assertEquals(0, ring.shardFor(id));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+    }
+}
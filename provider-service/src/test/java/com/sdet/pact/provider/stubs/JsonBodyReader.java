@@ -0,0 +1,185 @@
+package com.sdet.pact.provider.stubs;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JSON Body Reader
+ *
+ * Binds a JSON object request body field by field with a streaming
+ * {@link JsonParser} that reads straight from the exchange, so the body is
+ * never buffered whole and a request costs the parser's buffer plus the
+ * values bound, whatever the client sends:
+ * - a body over {@code maxBytes} is rejected with 413, up front from
+ *   {@code Content-Length} or while streaming a chunked body
+ * - nesting deeper than {@code maxDepth}, malformed JSON, a body that
+ *   isn't an object and values of the wrong type are rejected with 400
+ *
+ * Unknown fields are skipped without being materialised. Limits default to
+ * {@code -Dstub.maxBodyBytes} (16384) and {@code -Dstub.maxDepth} (8).
+ */
+public class JsonBodyReader {
+
+    private final long maxBytes;
+    private final JsonFactory factory;
+
+    public JsonBodyReader(long maxBytes, int maxDepth) {
+        this.maxBytes = maxBytes;
+        this.factory = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                .maxNestingDepth(maxDepth)
+                .build())
+            .build();
+    }
+
+    public static JsonBodyReader fromSystemProperties() {
+        return new JsonBodyReader(Long.getLong("stub.maxBodyBytes", 16384), Integer.getInteger("stub.maxDepth", 8));
+    }
+
+    /**
+     * Called once per top-level field with the parser on the field's value;
+     * the handler must consume the value, e.g. with {@link #text} or
+     * {@link JsonParser#skipChildren()}
+     */
+    public interface FieldHandler {
+        void field(String name, JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Streams the request body as a JSON object into {@code handler}
+     *
+     * @throws RejectedBodyException with the status to answer (400 or 413)
+     */
+    public void readObject(HttpExchange exchange, FieldHandler handler) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && parseLength(contentLength) > maxBytes) {
+            throw tooLarge();
+        }
+
+        try (JsonParser parser = factory.createParser(new BoundedInputStream(exchange.getRequestBody()))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RejectedBodyException(400, "Request body must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                handler.field(name, parser);
+            }
+            if (parser.nextToken() != null) {
+                throw new RejectedBodyException(400, "Unexpected content after the JSON object");
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed JSON, or a StreamConstraintsException for nesting past maxDepth
+            throw new RejectedBodyException(400, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * The current value as a string, which may be JSON {@code null}
+     */
+    public static String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw new RejectedBodyException(400, "Field \"" + parser.getCurrentName() + "\" must be a string");
+        }
+        return parser.getText();
+    }
+
+    /**
+     * The current value as an int; out-of-range numbers fail as invalid JSON
+     */
+    public static int integer(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new RejectedBodyException(400, "Field \"" + parser.getCurrentName() + "\" must be an integer");
+        }
+        return parser.getIntValue();
+    }
+
+    /**
+     * The current value as a double, from an integer or decimal number
+     */
+    public static double number(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            throw new RejectedBodyException(400, "Field \"" + parser.getCurrentName() + "\" must be a number");
+        }
+        return parser.getDoubleValue();
+    }
+
+    public static boolean bool(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isBoolean()) {
+            throw new RejectedBodyException(400, "Field \"" + parser.getCurrentName() + "\" must be a boolean");
+        }
+        return parser.getBooleanValue();
+    }
+
+    private long parseLength(String contentLength) throws RejectedBodyException {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new RejectedBodyException(400, "Invalid Content-Length");
+        }
+    }
+
+    private RejectedBodyException tooLarge() {
+        return new RejectedBodyException(413, "Request body exceeds " + maxBytes + " bytes");
+    }
+
+    /**
+     * Fails the read once more than maxBytes have come through, for bodies
+     * without a Content-Length
+     */
+    private class BoundedInputStream extends FilterInputStream {
+        private long remaining = maxBytes;
+
+        BoundedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --remaining < 0) {
+                throw tooLarge();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            // Ask for one byte past the limit so an exactly-full body still reaches EOF
+            int n = super.read(buffer, offset, (int) Math.min(length, remaining + 1));
+            if (n > 0 && (remaining -= n) < 0) {
+                throw tooLarge();
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Request body refused before or while binding; {@link #status()} is
+     * the HTTP status to answer with
+     */
+    public static class RejectedBodyException extends IOException {
+        private final int status;
+
+        public RejectedBodyException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int status() {
+            return status;
+        }
+    }
+}
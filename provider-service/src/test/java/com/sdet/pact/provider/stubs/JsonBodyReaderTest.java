@@ -0,0 +1,173 @@
+package com.sdet.pact.provider.stubs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the stubs' write and admin endpoints with bodies that break the
+ * {@link JsonBodyReader} limits, and with well-formed bodies the old
+ * untyped binding accepted
+ */
+@DisplayName("JSON Body Reader Tests")
+public class JsonBodyReaderTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserProviderStub providerStub;
+    private URI usersUri;
+
+    @BeforeEach
+    void setup() {
+        providerStub = new UserProviderStub(0);
+        providerStub.start();
+        usersUri = URI.create("http://localhost:" + providerStub.getPort() + "/api/users");
+        providerStub.enableUserCreation();
+        providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        providerStub.stop();
+    }
+
+    @Test
+    @DisplayName("Should reject a body over the size limit by Content-Length")
+    void shouldRejectOversizedBody() throws Exception {
+        HttpResponse<String> response = send("POST", usersUri, HttpRequest.BodyPublishers.ofString(oversizedUser()));
+
+        assertEquals(413, response.statusCode());
+        assertEquals(413, objectMapper.readTree(response.body()).get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("Should reject a chunked body once it streams past the size limit")
+    void shouldRejectOversizedChunkedBody() throws Exception {
+        byte[] body = oversizedUser().getBytes(StandardCharsets.UTF_8);
+        // No Content-Length: the HTTP client sends it chunked
+        HttpResponse<String> response = send("POST", usersUri,
+            HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body)));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject nesting past the depth limit, even in unknown fields")
+    void shouldRejectDeepNesting() throws Exception {
+        String nested = "[".repeat(20) + "]".repeat(20);
+        HttpResponse<String> response = send("POST", usersUri,
+            HttpRequest.BodyPublishers.ofString("{\"name\": \"Deep\", \"extra\": " + nested + "}"));
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed JSON and wrongly typed fields")
+    void shouldRejectInvalidBodies() throws Exception {
+        assertEquals(400, send("POST", usersUri, HttpRequest.BodyPublishers.ofString("{\"name\": ")).statusCode());
+        assertEquals(400, send("POST", usersUri, HttpRequest.BodyPublishers.ofString("[]")).statusCode());
+        assertEquals(400, send("POST", usersUri, HttpRequest.BodyPublishers.ofString("{\"name\": 42}")).statusCode());
+        assertEquals(400, send("PUT", usersUri.resolve("/api/users/1"),
+            HttpRequest.BodyPublishers.ofString("{\"email\": {\"address\": \"x\"}}")).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should bind known fields and skip unknown ones")
+    void shouldBindKnownFields() throws Exception {
+        HttpResponse<String> created = send("POST", usersUri, HttpRequest.BodyPublishers.ofString(
+            "{\"name\": \"Jane Smith\", \"tags\": [{\"a\": 1}], \"email\": \"jane@example.com\", \"role\": \"USER\"}"));
+        assertEquals(201, created.statusCode());
+        JsonNode user = objectMapper.readTree(created.body());
+        assertEquals("Jane Smith", user.get("name").asText());
+        assertEquals("jane@example.com", user.get("email").asText());
+        assertEquals("USER", user.get("role").asText());
+
+        // Fields absent from an update keep their current value
+        HttpResponse<String> updated = send("PUT", usersUri.resolve("/api/users/1"),
+            HttpRequest.BodyPublishers.ofString("{\"name\": \"John Updated\"}"));
+        assertEquals(200, updated.statusCode());
+        JsonNode updatedUser = objectMapper.readTree(updated.body());
+        assertEquals("John Updated", updatedUser.get("name").asText());
+        assertEquals("john.doe@example.com", updatedUser.get("email").asText());
+    }
+
+    @Test
+    @DisplayName("Should apply the same limits to admin setup bodies")
+    void shouldLimitAdminBodies() throws Exception {
+        URI adminUsers = usersUri.resolve("/_admin/users");
+        assertEquals(413, send("POST", adminUsers, HttpRequest.BodyPublishers.ofString(oversizedUser())).statusCode());
+        assertEquals(400, send("POST", adminUsers,
+            HttpRequest.BodyPublishers.ofString("{\"id\": \"2\", \"name\": \"Jane Smith\"}")).statusCode());
+        assertEquals(400, send("POST", usersUri.resolve("/_admin/user-creation"),
+            HttpRequest.BodyPublishers.ofString("{\"enabled\": " + "[".repeat(20) + "]".repeat(20) + "}")).statusCode());
+
+        assertEquals(204, send("POST", adminUsers, HttpRequest.BodyPublishers.ofString(
+            "{\"id\": 2, \"name\": \"Jane Smith\", \"email\": \"jane@example.com\", \"role\": \"USER\", "
+                + "\"active\": true, \"extra\": {\"a\": 1}}")).statusCode());
+        JsonNode user = objectMapper.readTree(send("GET", usersUri.resolve("/api/users/2"),
+            HttpRequest.BodyPublishers.noBody()).body());
+        assertEquals("Jane Smith", user.get("name").asText());
+        assertTrue(user.get("active").asBoolean());
+
+        assertEquals(204, send("POST", usersUri.resolve("/_admin/user-creation"),
+            HttpRequest.BodyPublishers.ofString("{\"enabled\": false}")).statusCode());
+        assertEquals(403, send("POST", usersUri, HttpRequest.BodyPublishers.ofString("{\"name\": \"Nobody\"}"))
+            .statusCode());
+    }
+
+    @Test
+    @DisplayName("Should bind product admin bodies through the same reader")
+    void shouldLimitProductAdminBodies() throws Exception {
+        ProductProviderStub products = new ProductProviderStub(0);
+        products.start();
+        try {
+            URI admin = URI.create("http://localhost:" + products.getPort() + "/_admin/products");
+            assertEquals(413, send("POST", admin, HttpRequest.BodyPublishers.ofString(oversizedUser())).statusCode());
+            assertEquals(400, send("POST", admin,
+                HttpRequest.BodyPublishers.ofString("{\"id\": 1, \"price\": \"cheap\"}")).statusCode());
+            assertEquals(400, send("POST", admin.resolve("/_admin/products/1/details"),
+                HttpRequest.BodyPublishers.ofString("{\"stock\": 1.5}")).statusCode());
+
+            assertEquals(204, send("POST", admin, HttpRequest.BodyPublishers.ofString(
+                "{\"id\": 1, \"name\": \"Laptop\", \"price\": 999, \"category\": \"Electronics\", "
+                    + "\"inStock\": true}")).statusCode());
+            assertEquals(204, send("POST", admin.resolve("/_admin/products/1/details"), HttpRequest.BodyPublishers.ofString(
+                "{\"manufacturer\": \"TechCorp\", \"warranty\": \"2 years\", \"stock\": 50}")).statusCode());
+            JsonNode product = objectMapper.readTree(send("GET",
+                URI.create("http://localhost:" + products.getPort() + "/api/products/1?includeDetails=true"),
+                HttpRequest.BodyPublishers.noBody()).body());
+            assertEquals(999.0, product.get("price").asDouble());
+            assertEquals(50, product.get("details").get("stock").asInt());
+        } finally {
+            products.stop();
+        }
+    }
+
+    // Comfortably past the default 16 KB limit, but small enough for the server to drain
+    private static String oversizedUser() {
+        return "{\"name\": \"" + "x".repeat(20_000) + "\"}";
+    }
+
+    private HttpResponse<String> send(String method, URI uri, HttpRequest.BodyPublisher body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .method(method, body)
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertTrue(response.statusCode() < 500, "Unexpected " + response.statusCode() + ": " + response.body());
+        return response;
+    }
+}
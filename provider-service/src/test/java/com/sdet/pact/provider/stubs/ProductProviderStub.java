@@ -1,81 +1,168 @@
 package com.sdet.pact.provider.stubs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sdet.pact.provider.codec.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Stub implementation of Product Provider Service
+ *
+ * Product changes are published on {@code GET /api/products/changes} (see
+ * {@link ChangeFeed}).
+ *
+ * Admin setup bodies are streamed into typed fields with size and depth
+ * limits (see {@link JsonBodyReader}); oversized bodies get 413, malformed
+ * or too deeply nested ones 400.
+ *
+ * Products, details and the change feed are kept per tenant (see
+ * {@link Tenants}); every endpoint is also served under {@code /t/<tenant>}.
+ * The {@link ProductStub} methods set up the {@code default} tenant and
+ * {@link #tenant(String)} gives a {@link ProductSetup} for any other. Only state
+ * setup creates a tenant; requests for one it hasn't created see no products,
+ * and its change feed is a 404.
  */
-public class ProductProviderStub {
+public class ProductProviderStub implements ProductStub {
 
     private HttpServer server;
     private final int port;
-    private final Map<Integer, Product> products = new HashMap<>();
-    private final Map<Integer, ProductDetails> productDetails = new HashMap<>();
+    private final Executor executor;
+    private final Tenants<ProductData> tenants =
+        new Tenants<>(tenant -> new ProductData(new ChangeFeed("products-" + tenant)));
+    // Stands in for tenants nothing has set up; requests only read it
+    private final ProductData noProducts = new ProductData(null);
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonBodyReader bodyReader = JsonBodyReader.fromSystemProperties();
 
     public ProductProviderStub(int port) {
+        this(port, null);
+    }
+
+    /**
+     * Runs request handlers on {@code executor}, which stays owned by the
+     * caller; {@code null} handles requests on the server's dispatcher thread
+     */
+    public ProductProviderStub(int port, Executor executor) {
         this.port = port;
+        this.executor = executor;
     }
 
+    @Override
     public void start() {
         try {
             server = HttpServer.create(new InetSocketAddress(port), 0);
             
             server.createContext("/api/products", this::handleProducts);
+            server.createContext("/api/products/changes", this::handleChanges);
+
+            // State setup over HTTP, used when the stub runs in another process
+            server.createContext("/_admin", this::handleAdmin);
+
+            // The same endpoints for a tenant named in the path
+            server.createContext("/t/", this::handleTenantPath);
             
-            server.setExecutor(null);
+            server.setExecutor(executor);
             server.start();
-            System.out.println("Product Provider Stub started on port " + port);
+            System.out.println("Product Provider Stub started on port " + getPort());
         } catch (IOException e) {
             throw new RuntimeException("Failed to start stub server", e);
         }
     }
 
+    @Override
     public void stop() {
         if (server != null) {
+            tenants.closeAll();
             server.stop(0);
             System.out.println("Product Provider Stub stopped");
         }
     }
 
+    /**
+     * Actual listening port, useful when the stub was created with port 0
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * The {@code /_admin} state-setup handler, for hosting it on another
+     * server next to other stubs' admin handlers
+     */
+    public HttpHandler adminHandler() {
+        return this::handleAdmin;
+    }
+
+    private void handleTenantPath(HttpExchange exchange) throws IOException {
+        String path = Tenants.path(exchange);
+        if (path.startsWith("/api/products/changes")) {
+            handleChanges(exchange);
+        } else if (path.startsWith("/api/products")) {
+            handleProducts(exchange);
+        } else if (path.startsWith("/_admin")) {
+            handleAdmin(exchange);
+        } else {
+            sendError(exchange, 404, "Not found");
+        }
+    }
+
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        ProductData data = tenantData(exchange);
+        if (data == noProducts) {
+            // Its feed would be gone once state setup creates the tenant
+            sendError(exchange, 404, "Tenant not found");
+        } else if (data != null) {
+            // Started on first subscriber, so idle tenants cost no thread
+            data.changes.start();
+            data.changes.subscribe(exchange);
+        }
+    }
+
     private void handleProducts(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
+        String path = Tenants.path(exchange);
         String query = exchange.getRequestURI().getQuery();
+        ProductData data = tenantData(exchange);
+        if (data == null) {
+            return;
+        }
         
         if ("GET".equals(method)) {
             if (path.equals("/api/products")) {
-                handleGetAllProducts(exchange);
+                handleGetAllProducts(exchange, data);
             } else {
-                handleGetProductById(exchange, path, query);
+                handleGetProductById(exchange, path, query, data);
             }
         } else {
             sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
         }
     }
 
-    private void handleGetAllProducts(HttpExchange exchange) throws IOException {
-        List<Product> productList = new ArrayList<>(products.values());
-        String response = objectMapper.writeValueAsString(productList);
-        sendResponse(exchange, 200, response);
+    private void handleGetAllProducts(HttpExchange exchange, ProductData data) throws IOException {
+        List<Product> productList = new ArrayList<>(data.products.values());
+        sendResponse(exchange, 200, ProductCodec.encodeAll(productList));
     }
 
-    private void handleGetProductById(HttpExchange exchange, String path, String query) throws IOException {
+    private void handleGetProductById(HttpExchange exchange, String path, String query, ProductData data)
+            throws IOException {
         try {
             String[] parts = path.split("/");
             int productId = Integer.parseInt(parts[parts.length - 1]);
             
-            Product product = products.get(productId);
+            Product product = data.products.get(productId);
             if (product == null) {
                 sendResponse(exchange, 404, "{\"error\": \"Product not found\"}");
                 return;
@@ -85,52 +172,282 @@ public class ProductProviderStub {
             
             if (includeDetails) {
                 ProductWithDetails productWithDetails = new ProductWithDetails(product);
-                ProductDetails details = productDetails.get(productId);
+                ProductDetails details = data.productDetails.get(productId);
                 if (details != null) {
                     productWithDetails.details = details;
                 }
-                String response = objectMapper.writeValueAsString(productWithDetails);
-                sendResponse(exchange, 200, response);
+                sendResponse(exchange, 200, ProductWithDetailsCodec.encode(productWithDetails));
+            } else {
+                sendResponse(exchange, 200, ProductCodec.encode(product));
+            }
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "{\"error\": \"Invalid product ID\"}");
+        }
+    }
+
+    private void handleAdmin(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = Tenants.path(exchange);
+        String[] parts = path.split("/");
+        ProductSetup target;
+        try {
+            // Without a tenant, setup goes to the default one and a reset clears the whole stub
+            String tenant = Tenants.requested(exchange);
+            target = tenant != null ? tenant(tenant) : this;
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        try {
+            if ("POST".equals(method) && path.equals("/_admin/products")) {
+                Product product = readProduct(exchange);
+                target.addProduct(product.id, product.name, product.price, product.category, product.inStock);
+                sendResponse(exchange, 204, "");
+            } else if ("POST".equals(method) && path.startsWith("/_admin/products/") && path.endsWith("/details")) {
+                ProductDetails details = readDetails(exchange);
+                target.addProductDetails(Integer.parseInt(parts[parts.length - 2]),
+                    details.manufacturer, details.warranty, details.stock);
+                sendResponse(exchange, 204, "");
+            } else if ("DELETE".equals(method) && path.startsWith("/_admin/products/")) {
+                target.removeProduct(Integer.parseInt(parts[parts.length - 1]));
+                sendResponse(exchange, 204, "");
+            } else if ("POST".equals(method) && path.equals("/_admin/reset")) {
+                target.reset();
+                sendResponse(exchange, 204, "");
+            } else if ("GET".equals(method) && path.equals("/_admin/tenants")) {
+                sendResponse(exchange, 200, objectMapper.writeValueAsBytes(tenantNames()));
+            } else if ("DELETE".equals(method) && path.startsWith("/_admin/tenants/")) {
+                if (dropTenant(parts[parts.length - 1])) {
+                    sendResponse(exchange, 204, "");
+                } else {
+                    sendError(exchange, 404, "Tenant not found");
+                }
             } else {
-                String response = objectMapper.writeValueAsString(product);
-                sendResponse(exchange, 200, response);
+                sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
             }
         } catch (NumberFormatException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid product ID\"}");
+        } catch (JsonBodyReader.RejectedBodyException e) {
+            sendError(exchange, e.status(), e.getMessage());
         }
     }
 
+    private Product readProduct(HttpExchange exchange) throws IOException {
+        Product product = new Product();
+        bodyReader.readObject(exchange, (field, parser) -> {
+            switch (field) {
+                case "id":
+                    product.id = JsonBodyReader.integer(parser);
+                    break;
+                case "name":
+                    product.name = JsonBodyReader.text(parser);
+                    break;
+                case "price":
+                    product.price = JsonBodyReader.number(parser);
+                    break;
+                case "category":
+                    product.category = JsonBodyReader.text(parser);
+                    break;
+                case "inStock":
+                    product.inStock = JsonBodyReader.bool(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return product;
+    }
+
+    private ProductDetails readDetails(HttpExchange exchange) throws IOException {
+        ProductDetails details = new ProductDetails();
+        bodyReader.readObject(exchange, (field, parser) -> {
+            switch (field) {
+                case "manufacturer":
+                    details.manufacturer = JsonBodyReader.text(parser);
+                    break;
+                case "warranty":
+                    details.warranty = JsonBodyReader.text(parser);
+                    break;
+                case "stock":
+                    details.stock = JsonBodyReader.integer(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return details;
+    }
+
+    // null once a 400 has been sent for an invalid tenant; a tenant nothing has set up reads as empty
+    private ProductData tenantData(HttpExchange exchange) throws IOException {
+        try {
+            ProductData data = tenants.find(Tenants.of(exchange));
+            return data != null ? data : noProducts;
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return null;
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode()
+            .put("error", message)
+            .put("status", statusCode);
+        sendResponse(exchange, statusCode, objectMapper.writeValueAsBytes(error));
+    }
+
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        sendResponse(exchange, statusCode, response.getBytes());
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, byte[] bytes) throws IOException {
         exchange.getResponseHeaders().add("Content-Type", "application/json");
-        byte[] bytes = response.getBytes();
-        exchange.sendResponseHeaders(statusCode, bytes.length);
+        // A bodiless exchange ends inside sendResponseHeaders, and the JDK server drops the
+        // keep-alive connection if the request body is unread at that point
+        exchange.getRequestBody().close();
+        // -1 means no body; 0 would ask for chunked encoding, which the JDK server logs a warning about on a 204
+        exchange.sendResponseHeaders(statusCode, bytes.length > 0 ? bytes.length : -1);
         
         if (bytes.length > 0) {
             try (OutputStream os = exchange.getResponseBody()) {
                 os.write(bytes);
             }
-        } else {
-            exchange.getResponseBody().close();
         }
+        // Without a body the exchange is already over: closing the response stream again
+        // would hand the connection back twice, and two readers would race for the next request
     }
 
-    // Public methods for test setup
+    // Public methods for test setup, against the default tenant
 
+    @Override
     public void addProduct(int id, String name, double price, String category, boolean inStock) {
-        products.put(id, new Product(id, name, price, category, inStock));
+        addProduct(tenants.getOrCreate(Tenants.DEFAULT), id, name, price, category, inStock);
     }
 
+    @Override
     public void addProductDetails(int productId, String manufacturer, String warranty, int stock) {
-        productDetails.put(productId, new ProductDetails(manufacturer, warranty, stock));
+        addProductDetails(tenants.getOrCreate(Tenants.DEFAULT), productId, manufacturer, warranty, stock);
     }
 
+    @Override
     public void removeProduct(int id) {
-        products.remove(id);
-        productDetails.remove(id);
+        removeProduct(tenants.getOrCreate(Tenants.DEFAULT), id);
+    }
+
+    /**
+     * Drops every tenant and empties the default one
+     */
+    @Override
+    public void reset() {
+        tenants.clear();
+    }
+
+    /**
+     * State setup for one tenant, e.g. for the @State handlers of a suite
+     * whose requests carry {@code X-Stub-Tenant}; {@code reset()} on it
+     * resets only that tenant
+     */
+    public ProductSetup tenant(String name) {
+        return new TenantView(Tenants.checkName(name));
+    }
+
+    public boolean dropTenant(String name) {
+        return tenants.drop(name);
+    }
+
+    public Set<String> tenantNames() {
+        return tenants.names();
+    }
+
+    private void addProduct(ProductData data, int id, String name, double price, String category, boolean inStock) {
+        Product product = new Product(id, name, price, category, inStock);
+        Product previous = data.products.put(id, product);
+        publish(data, previous == null ? "product.created" : "product.updated", product);
+    }
+
+    private void addProductDetails(ProductData data, int productId, String manufacturer, String warranty, int stock) {
+        ProductDetails details = new ProductDetails(manufacturer, warranty, stock);
+        data.productDetails.put(productId, details);
+        Product product = data.products.get(productId);
+        if (product != null) {
+            ProductWithDetails productWithDetails = new ProductWithDetails(product);
+            productWithDetails.details = details;
+            publish(data, "product.updated", productWithDetails);
+        }
+    }
+
+    private void removeProduct(ProductData data, int id) {
+        Product removed = data.products.remove(id);
+        data.productDetails.remove(id);
+        if (removed != null) {
+            publish(data, "product.deleted", removed);
+        }
+    }
+
+    private void publish(ProductData data, String type, Product product) {
+        // Codecs encode the declared type, so pick the one for the runtime class
+        byte[] json = product instanceof ProductWithDetails
+            ? ProductWithDetailsCodec.encode((ProductWithDetails) product)
+            : ProductCodec.encode(product);
+        data.changes.publish(type, new String(json, StandardCharsets.UTF_8));
+    }
+
+    // One tenant's products; a reset swaps in a new instance sharing the change feed
+    private static class ProductData implements Tenants.State<ProductData> {
+        // Concurrent maps, as a shared executor may run handlers on many threads
+        final Map<Integer, Product> products = new ConcurrentHashMap<>();
+        final Map<Integer, ProductDetails> productDetails = new ConcurrentHashMap<>();
+        final ChangeFeed changes;
+
+        ProductData(ChangeFeed changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public ProductData fresh() {
+            changes.reset();
+            return new ProductData(changes);
+        }
+
+        @Override
+        public void close() {
+            changes.close();
+        }
+    }
+
+    // State setup for one tenant; the owning stub is started and stopped as a whole
+    private class TenantView implements ProductSetup {
+        private final String name;
+
+        TenantView(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void reset() {
+            tenants.reset(name);
+        }
+
+        @Override
+        public void addProduct(int id, String productName, double price, String category, boolean inStock) {
+            ProductProviderStub.this.addProduct(tenants.getOrCreate(name), id, productName, price, category, inStock);
+        }
+
+        @Override
+        public void addProductDetails(int productId, String manufacturer, String warranty, int stock) {
+            ProductProviderStub.this.addProductDetails(tenants.getOrCreate(name), productId, manufacturer, warranty, stock);
+        }
+
+        @Override
+        public void removeProduct(int id) {
+            ProductProviderStub.this.removeProduct(tenants.getOrCreate(name), id);
+        }
     }
 
-    // Inner classes
+    // Inner classes; a <Name>Codec is generated for each
 
+    @JsonCodec
     public static class Product {
         public int id;
         public String name;
@@ -149,6 +466,7 @@ public class ProductProviderStub {
         }
     }
 
+    @JsonCodec
     public static class ProductDetails {
         public String manufacturer;
         public String warranty;
@@ -163,6 +481,7 @@ public class ProductProviderStub {
         }
     }
 
+    @JsonCodec
     public static class ProductWithDetails extends Product {
         public ProductDetails details;
 
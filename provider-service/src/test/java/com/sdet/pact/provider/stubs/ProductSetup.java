@@ -0,0 +1,16 @@
+package com.sdet.pact.provider.stubs;
+
+/**
+ * State setup for one set of products: a whole stub or fleet (see
+ * {@link ProductStub}) or a single tenant of one
+ */
+public interface ProductSetup {
+
+    void reset();
+
+    void addProduct(int id, String name, double price, String category, boolean inStock);
+
+    void addProductDetails(int productId, String manufacturer, String warranty, int stock);
+
+    void removeProduct(int id);
+}
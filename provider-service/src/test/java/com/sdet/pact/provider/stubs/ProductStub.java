@@ -0,0 +1,12 @@
+package com.sdet.pact.provider.stubs;
+
+/**
+ * State-setup surface shared by the in-process {@link ProductProviderStub} and
+ * the sharded {@link ProductStubFleet}, so @State handlers work against either
+ */
+public interface ProductStub extends ProductSetup {
+
+    void start();
+
+    void stop();
+}
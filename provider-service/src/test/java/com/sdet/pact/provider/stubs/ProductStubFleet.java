@@ -0,0 +1,48 @@
+package com.sdet.pact.provider.stubs;
+
+/**
+ * {@link ProductProviderStub} sharded by product ID across {@code shardCount} processes
+ */
+public class ProductStubFleet extends StubFleet implements ProductStub {
+
+    public ProductStubFleet(int port, int shardCount) {
+        super("products", port, shardCount);
+    }
+
+    public ProductStubFleet(int port, int shardCount, int warmUpRounds) {
+        super("products", port, shardCount, warmUpRounds);
+    }
+
+    @Override
+    protected void exercise() {
+        for (int id = 1; id <= 4; id++) {
+            addProduct(id, "Warm Up", 1.0, "Electronics", true);
+            addProductDetails(id, "Warm Up Inc", "1 year", 1);
+            probe("/api/products/" + id + "?includeDetails=true");
+        }
+        probe("/api/products");
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        broadcast("POST", "/_admin/reset", null);
+    }
+
+    @Override
+    public void addProduct(int id, String name, double price, String category, boolean inStock) {
+        admin(shardFor(id), "POST", "/_admin/products",
+            new ProductProviderStub.Product(id, name, price, category, inStock));
+    }
+
+    @Override
+    public void addProductDetails(int productId, String manufacturer, String warranty, int stock) {
+        admin(shardFor(productId), "POST", "/_admin/products/" + productId + "/details",
+            new ProductProviderStub.ProductDetails(manufacturer, warranty, stock));
+    }
+
+    @Override
+    public void removeProduct(int id) {
+        admin(shardFor(id), "DELETE", "/_admin/products/" + id, null);
+    }
+}
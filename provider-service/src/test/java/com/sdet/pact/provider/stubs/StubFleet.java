@@ -0,0 +1,596 @@
+package com.sdet.pact.provider.stubs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stub Fleet
+ *
+ * Runs a stub as N separate JVMs ({@link StubShardMain}) on free local ports
+ * and puts a thin routing front end on the public port:
+ * - {@code /api/<resource>/<id>...} goes to the shard owning the ID on the
+ *   {@link ConsistentHashRing}
+ * - other writes to a collection (e.g. {@code POST /api/users}) are spread
+ *   round-robin; shards only hand out IDs they own, so follow-up requests
+ *   for the new entity land on the same shard
+ * - other reads of a collection are scattered to all shards and the JSON
+ *   arrays merged and sorted by {@code id}
+ * - {@code /api/<resource>/changes} subscribes to every shard's feed and
+ *   interleaves their events; the event ID is the list of per-shard IDs,
+ *   e.g. {@code 12.7}, so {@code Last-Event-ID} resumes each shard where it
+ *   left off (an ID from another set-up gets a {@code reset})
+ *
+ * Request and response bodies are streamed between client and shard rather
+ * than buffered in the router; only merged collection reads are parsed.
+ *
+ * State setup goes to the owning shard's {@code /_admin} endpoint (see the
+ * subclasses); fleet-wide switches and resets are broadcast. Each shard has
+ * its own cores and heap, so throughput scales with the shard count rather
+ * than being capped by a single JVM.
+ */
+public abstract class StubFleet {
+
+    private static final int DEFAULT_WARM_UP_ROUNDS = 50;
+
+    // Managed by the HTTP stacks on either side, never forwarded
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+        "connection", "content-length", "date", "expect", "host", "keep-alive",
+        "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConsistentHashRing ring;
+    private final String kind;
+    private final int port;
+    private final int warmUpRounds;
+    private final List<Process> shards = new ArrayList<>();
+    private final List<URI> shardUris = new ArrayList<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    protected StubFleet(String kind, int port, int shardCount) {
+        this(kind, port, shardCount, DEFAULT_WARM_UP_ROUNDS);
+    }
+
+    protected StubFleet(String kind, int port, int shardCount, int warmUpRounds) {
+        this.kind = kind;
+        this.port = port;
+        this.warmUpRounds = warmUpRounds;
+        this.ring = new ConsistentHashRing(shardCount);
+    }
+
+    /**
+     * Shard count requested with {@code -Dstub.shards=N} (default 1, no fleet)
+     */
+    public static int configuredShards() {
+        return Integer.getInteger("stub.shards", 1);
+    }
+
+    /**
+     * Timing variant for the configured set-up: {@code null} for a single
+     * in-process stub, {@code shards-N} for a fleet, whose routing hop and
+     * scatter-gather make its timings incomparable
+     */
+    public static String timingVariant() {
+        int shards = configuredShards();
+        return shards > 1 ? "shards-" + shards : null;
+    }
+
+    public void start() {
+        try {
+            // Launch every shard first so they boot in parallel, then wait for each
+            for (int shard = 0; shard < ring.shardCount(); shard++) {
+                shards.add(launch(shard));
+            }
+            for (int shard = 0; shard < shards.size(); shard++) {
+                shardUris.add(URI.create("http://localhost:" + awaitReady(shard, shards.get(shard))));
+            }
+
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/", this::route);
+            executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            server.start();
+            warmUp();
+            System.out.println("Stub fleet (" + kind + ") started on port " + getPort()
+                + " with " + shards.size() + " shards " + shardUris);
+        } catch (IOException e) {
+            stop();
+            throw new RuntimeException("Failed to start stub fleet", e);
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+        for (Process shard : shards) {
+            try {
+                shard.getOutputStream().close();
+                if (!shard.waitFor(5, TimeUnit.SECONDS)) {
+                    shard.destroyForcibly();
+                }
+            } catch (IOException e) {
+                shard.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shard.destroyForcibly();
+            }
+        }
+        shards.clear();
+        shardUris.clear();
+        System.out.println("Stub fleet (" + kind + ") stopped");
+    }
+
+    /**
+     * Actual listening port, useful when the fleet was created with port 0
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    protected int shardFor(int id) {
+        return ring.shardFor(id);
+    }
+
+    /**
+     * Sends a state-setup call to one shard's admin endpoint
+     */
+    protected void admin(int shard, String method, String path, Object body) {
+        try {
+            HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+            HttpRequest request = HttpRequest.newBuilder(shardUris.get(shard).resolve(path))
+                .header("Content-Type", "application/json")
+                .method(method, publisher)
+                .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("Shard " + shard + " rejected " + method + " " + path
+                    + ": " + response.statusCode() + " " + response.body());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Shard " + shard + " unreachable for " + method + " " + path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during state setup", e);
+        }
+    }
+
+    /**
+     * Sends the same state-setup call to every shard
+     */
+    protected void broadcast(String method, String path, Object body) {
+        for (int shard = 0; shard < shardUris.size(); shard++) {
+            admin(shard, method, path, body);
+        }
+    }
+
+    /**
+     * One round of representative state setup and routed traffic, used to
+     * warm up the shards, the router and this JVM's admin client
+     */
+    protected abstract void exercise();
+
+    /**
+     * Sends a GET through the router, for warm-up traffic
+     */
+    protected void probe(String pathAndQuery) {
+        try {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + getPort() + pathAndQuery)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new RuntimeException("Router unreachable for GET " + pathAndQuery, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during warm-up", e);
+        }
+    }
+
+    /**
+     * Fresh shard JVMs run interpreted; push traffic through every path
+     * before handing the fleet over, so the first verified interactions
+     * don't pay for class loading and JIT
+     */
+    private void warmUp() {
+        for (int round = 0; round < warmUpRounds; round++) {
+            exercise();
+        }
+        reset();
+    }
+
+    public abstract void reset();
+
+    private Process launch(int shard) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        ProcessBuilder builder = new ProcessBuilder(java,
+            "-Dsun.net.httpserver.nodelay=true",
+            "-cp", classpath,
+            StubShardMain.class.getName(),
+            kind, "0", String.valueOf(shard), String.valueOf(ring.shardCount()));
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    private int awaitReady(int shard, Process process) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith("READY ")) {
+                int shardPort = Integer.parseInt(line.substring("READY ".length()).trim());
+                // Keep draining so a chatty shard never blocks on a full pipe
+                Thread drain = new Thread(() -> echo(shard, out), kind + "-shard-" + shard + "-out");
+                drain.setDaemon(true);
+                drain.start();
+                return shardPort;
+            }
+            System.out.println("[" + kind + " shard " + shard + "] " + line);
+        }
+        throw new IOException("Shard " + shard + " exited before becoming ready");
+    }
+
+    private void echo(int shard, BufferedReader out) {
+        try {
+            String line;
+            while ((line = out.readLine()) != null) {
+                System.out.println("[" + kind + " shard " + shard + "] " + line);
+            }
+        } catch (IOException e) {
+            // Shard went away
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        URI requestUri = exchange.getRequestURI();
+        // Route on the path without any /t/<tenant> prefix; shards get the request unchanged
+        String[] segments = Tenants.stripPrefix(requestUri.getPath()).split("/");
+
+        try {
+            if (segments.length == 4 && segments[3].equals("changes") && "GET".equals(method)) {
+                streamChanges(exchange);
+            } else if (segments.length >= 4 && segments[1].equals("api")) {
+                forward(shardForSegment(segments[3]), exchange);
+            } else if (segments.length == 3 && segments[1].equals("api") && "GET".equals(method)) {
+                scatterGather(exchange);
+            } else if (segments.length == 3 && segments[1].equals("api")) {
+                forward(Math.floorMod(nextShard.getAndIncrement(), shardUris.size()), exchange);
+            } else {
+                forward(0, exchange);
+            }
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (exchange.getResponseCode() != -1) {
+                // Failed part-way through a streamed body: all that's left is to cut the connection
+                exchange.close();
+                return;
+            }
+            reply(exchange, 502, Map.of("Content-Type", List.of("application/json")),
+                "{\"error\": \"Shard unavailable\"}".getBytes());
+        }
+    }
+
+    private int shardForSegment(String segment) {
+        try {
+            return ring.shardFor(Integer.parseInt(segment));
+        } catch (NumberFormatException e) {
+            // Any shard can reject a malformed ID
+            return 0;
+        }
+    }
+
+    private void forward(int shard, HttpExchange exchange) throws IOException, InterruptedException {
+        relay(exchange, client.send(shardRequest(shard, exchange, streamedBody(exchange)),
+            HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    /**
+     * The request body as it arrives, keeping its length when the client
+     * sent one so the shard sees the same framing
+     */
+    private static HttpRequest.BodyPublisher streamedBody(HttpExchange exchange) {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        boolean chunked = exchange.getRequestHeaders().containsKey("Transfer-Encoding");
+        HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(exchange::getRequestBody);
+        if (chunked) {
+            return stream;
+        }
+        long length = contentLength != null ? Long.parseLong(contentLength.trim()) : 0;
+        return length > 0 ? HttpRequest.BodyPublishers.fromPublisher(stream, length) : HttpRequest.BodyPublishers.noBody();
+    }
+
+    private void scatterGather(HttpExchange exchange) throws IOException, InterruptedException {
+        // A body can only be streamed once, and has no meaning on a collection read anyway
+        exchange.getRequestBody().close();
+        List<CompletableFuture<HttpResponse<InputStream>>> pending = new ArrayList<>();
+        for (int shard = 0; shard < shardUris.size(); shard++) {
+            pending.add(client.sendAsync(shardRequest(shard, exchange, HttpRequest.BodyPublishers.noBody()),
+                HttpResponse.BodyHandlers.ofInputStream()));
+        }
+
+        List<HttpResponse<InputStream>> responses = new ArrayList<>();
+        try {
+            for (CompletableFuture<HttpResponse<InputStream>> future : pending) {
+                responses.add(future.get());
+            }
+            if (responses.stream().anyMatch(response -> response.statusCode() != 200)) {
+                // Not a readable collection, let the first shard answer for everyone
+                relay(exchange, responses.get(0));
+                return;
+            }
+
+            List<JsonNode> bodies = new ArrayList<>();
+            for (HttpResponse<InputStream> response : responses) {
+                bodies.add(parse(response.body()));
+            }
+            JsonNode merged = bodies.get(0);
+            if (merged == null) {
+                throw new IOException("Shard sent malformed JSON");
+            }
+            // Anything but arrays isn't a list endpoint, and the first shard answers for everyone
+            if (bodies.stream().allMatch(body -> body != null && body.isArray())) {
+                List<JsonNode> items = new ArrayList<>();
+                bodies.forEach(body -> body.forEach(items::add));
+                items.sort(Comparator.comparingInt(item -> item.path("id").asInt()));
+                merged = objectMapper.createArrayNode().addAll(items);
+            }
+            copyHeaders(responses.get(0), exchange);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                objectMapper.writeValue(out, merged);
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Shard request failed", e.getCause());
+        } finally {
+            // Whatever wasn't relayed or parsed; a failed request leaves nothing to close
+            pending.forEach(future -> future.thenAccept(response -> closeQuietly(response.body())));
+        }
+    }
+
+    /**
+     * One stream merged from every shard's change feed. The client's
+     * {@code Last-Event-ID} is split into each shard's position; every
+     * event forwarded carries the positions after it, so the ID the client
+     * saw last always covers everything it has been sent.
+     */
+    private void streamChanges(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getRequestBody().close();
+        long[] resumeFrom = feedPositions(exchange);
+        List<HttpResponse<InputStream>> streams = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardUris.size(); shard++) {
+                HttpRequest.Builder request = HttpRequest.newBuilder(
+                    shardUris.get(shard).resolve(exchange.getRequestURI().getRawPath())).GET();
+                forwardHeaders(exchange, request);
+                if (resumeFrom != null) {
+                    request.setHeader("Last-Event-ID", String.valueOf(resumeFrom[shard]));
+                }
+                HttpResponse<InputStream> stream = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                streams.add(stream);
+                if (stream.statusCode() != 200) {
+                    // E.g. 404 for a tenant nothing has set up, the same on every shard
+                    relay(exchange, stream);
+                    return;
+                }
+            }
+
+            long[] positions = new long[streams.size()];
+            for (int shard = 0; shard < streams.size(); shard++) {
+                positions[shard] = streams.get(shard).headers().firstValueAsLong("Last-Event-ID").orElse(-1);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("Last-Event-ID", feedId(positions));
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            // Runs until the first shard stream ends or the client goes away, then takes the rest down
+            CountDownLatch ended = new CountDownLatch(1);
+            for (int shard = 0; shard < streams.size(); shard++) {
+                int from = shard;
+                executor.execute(() -> {
+                    try {
+                        relayEvents(from, streams.get(from).body(), out, positions);
+                    } catch (IOException e) {
+                        // Shard or client went away
+                    } finally {
+                        ended.countDown();
+                    }
+                });
+            }
+            ended.await();
+        } finally {
+            streams.forEach(stream -> closeQuietly(stream.body()));
+            exchange.close();
+        }
+    }
+
+    private void relayEvents(int shard, InputStream in, OutputStream out, long[] positions) throws IOException {
+        BufferedReader events = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        StringBuilder frame = new StringBuilder();
+        long id = -1;
+        String line;
+        while ((line = events.readLine()) != null) {
+            if (!line.isEmpty()) {
+                if (line.startsWith("id:")) {
+                    id = Long.parseLong(line.substring("id:".length()).trim());
+                } else {
+                    frame.append(line).append('\n');
+                }
+                continue;
+            }
+            // The router sent its own greeting
+            if (frame.length() > 0 && !": connected\n".contentEquals(frame)) {
+                synchronized (positions) {
+                    if (id >= 0) {
+                        positions[shard] = id;
+                        frame.insert(0, "id: " + feedId(positions) + "\n");
+                    }
+                    out.write(frame.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+            frame.setLength(0);
+            id = -1;
+        }
+    }
+
+    /**
+     * Each shard's position from the client's {@code Last-Event-ID} (header,
+     * or {@code lastEventId} query parameter), null if it sent none; an ID
+     * that isn't one of ours puts every shard past its end, so each answers
+     * with a {@code reset}
+     */
+    private long[] feedPositions(HttpExchange exchange) {
+        String id = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        String query = exchange.getRequestURI().getQuery();
+        if (id == null && query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("lastEventId=")) {
+                    id = pair.substring("lastEventId=".length());
+                }
+            }
+        }
+        if (id == null) {
+            return null;
+        }
+        long[] positions = new long[shardUris.size()];
+        String[] parts = id.trim().split("\\.");
+        try {
+            if (parts.length != positions.length) {
+                throw new NumberFormatException(id);
+            }
+            for (int shard = 0; shard < parts.length; shard++) {
+                positions[shard] = Long.parseLong(parts[shard]);
+            }
+        } catch (NumberFormatException e) {
+            Arrays.fill(positions, Long.MAX_VALUE);
+        }
+        return positions;
+    }
+
+    private static String feedId(long[] positions) {
+        StringBuilder id = new StringBuilder();
+        for (long position : positions) {
+            if (id.length() > 0) {
+                id.append('.');
+            }
+            id.append(position);
+        }
+        return id.toString();
+    }
+
+    private HttpRequest shardRequest(int shard, HttpExchange exchange, HttpRequest.BodyPublisher body) {
+        URI requestUri = exchange.getRequestURI();
+        String rawQuery = requestUri.getRawQuery();
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                shardUris.get(shard).resolve(requestUri.getRawPath() + (rawQuery != null ? "?" + rawQuery : "")))
+            .method(exchange.getRequestMethod(), body);
+        forwardHeaders(exchange, request);
+        return request.build();
+    }
+
+    private static void forwardHeaders(HttpExchange exchange, HttpRequest.Builder request) {
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase())) {
+                header.getValue().forEach(value -> request.header(header.getKey(), value));
+            }
+        }
+    }
+
+    private JsonNode parse(InputStream body) {
+        try (InputStream in = body) {
+            return objectMapper.readTree(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams a shard's response to the client, keeping its length when it
+     * sent one
+     */
+    private static void relay(HttpExchange exchange, HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            // Whatever the shard didn't read, e.g. after rejecting an oversized body
+            exchange.getRequestBody().close();
+            copyHeaders(response, exchange);
+            int status = response.statusCode();
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            boolean noBody = status == 204 || status == 304 || "HEAD".equals(exchange.getRequestMethod()) || length == 0;
+            exchange.sendResponseHeaders(status, noBody ? -1 : Math.max(length, 0));
+            // A bodiless exchange ends in sendResponseHeaders; closing its stream again would end it twice
+            if (!noBody) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    in.transferTo(out);
+                }
+            }
+        }
+    }
+
+    private static void copyHeaders(HttpResponse<?> response, HttpExchange exchange) {
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase()) && !header.getKey().startsWith(":")) {
+                exchange.getResponseHeaders().put(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Only releasing the connection
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, Map<String, List<String>> headers, byte[] body)
+            throws IOException {
+        exchange.getRequestBody().close();
+        headers.forEach(exchange.getResponseHeaders()::put);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
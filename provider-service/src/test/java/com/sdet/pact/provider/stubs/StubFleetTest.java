@@ -0,0 +1,229 @@
+package com.sdet.pact.provider.stubs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs small two-shard fleets and checks that the router sends each ID to
+ * its owning shard, merges collection reads and change feeds, and streams
+ * bodies through
+ */
+@DisplayName("Stub Fleet Tests")
+public class StubFleetTest {
+
+    private static final int SHARDS = 2;
+
+    private static UserStubFleet users;
+    private static ProductStubFleet products;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConsistentHashRing ring = new ConsistentHashRing(SHARDS);
+
+    @BeforeAll
+    static void startFleets() {
+        // No warm-up: these tests check routing, not latency
+        users = new UserStubFleet(0, SHARDS, 0);
+        users.start();
+        products = new ProductStubFleet(0, SHARDS, 0);
+        products.start();
+    }
+
+    @AfterAll
+    static void stopFleets() {
+        if (users != null) {
+            users.stop();
+        }
+        if (products != null) {
+            products.stop();
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        users.reset();
+        products.reset();
+    }
+
+    @Test
+    @DisplayName("Should merge a collection read from every shard, sorted by ID")
+    void shouldMergeCollectionAcrossShards() throws Exception {
+        Set<Integer> owners = new HashSet<>();
+        for (int id = 12; id >= 1; id--) {
+            products.addProduct(id, "Product " + id, id, "Category", true);
+            owners.add(ring.shardFor(id));
+        }
+        assertEquals(SHARDS, owners.size(), "Test IDs should land on every shard");
+
+        HttpResponse<String> response = get(products.getPort(), "/api/products");
+        assertEquals(200, response.statusCode());
+        List<Integer> ids = new ArrayList<>();
+        objectMapper.readTree(response.body()).forEach(product -> ids.add(product.get("id").asInt()));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), ids);
+
+        assertEquals("Product 7", objectMapper.readTree(get(products.getPort(), "/api/products/7").body())
+            .get("name").asText());
+    }
+
+    @Test
+    @DisplayName("Should route each user to the shard that owns it, created ones included")
+    void shouldRouteUsersToOwningShard() throws Exception {
+        for (int id = 1; id <= 6; id++) {
+            users.addUser(id, "User " + id, "user" + id + "@example.com", "USER", true);
+        }
+        for (int id = 1; id <= 6; id++) {
+            assertEquals("User " + id, objectMapper.readTree(get(users.getPort(), "/api/users/" + id).body())
+                .get("name").asText());
+        }
+
+        // Creations are spread round-robin, and each shard only hands out IDs it owns
+        users.enableUserCreation();
+        for (int i = 0; i < 4; i++) {
+            HttpResponse<String> created = send("POST", users.getPort(), "/api/users",
+                HttpRequest.BodyPublishers.ofString("{\"name\": \"New " + i + "\", \"email\": \"new@example.com\"}"));
+            assertEquals(201, created.statusCode(), created.body());
+            int id = objectMapper.readTree(created.body()).get("id").asInt();
+            assertEquals(200, get(users.getPort(), "/api/users/" + id).statusCode(), "Created user " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream request bodies through to the shard")
+    void shouldStreamBodies() throws Exception {
+        users.addUser(3, "John Doe", "john.doe@example.com", "ADMIN", true);
+        byte[] update = "{\"name\": \"Streamed\"}".getBytes(StandardCharsets.UTF_8);
+
+        // No Content-Length: the client sends it chunked, and so does the router
+        HttpResponse<String> chunked = send("PUT", users.getPort(), "/api/users/3",
+            HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(update)));
+        assertEquals(200, chunked.statusCode(), chunked.body());
+        JsonNode user = objectMapper.readTree(get(users.getPort(), "/api/users/3").body());
+        assertEquals("Streamed", user.get("name").asText());
+
+        // Rejected by the shard's size limit, not buffered by the router
+        String oversized = "{\"name\": \"" + "x".repeat(20_000) + "\"}";
+        assertEquals(413, send("PUT", users.getPort(), "/api/users/3",
+            HttpRequest.BodyPublishers.ofString(oversized)).statusCode());
+        assertTrue(get(users.getPort(), "/api/users/3").body().contains("Streamed"));
+    }
+
+    @Test
+    @DisplayName("Should keep reused connections in step across bodiless replies")
+    void shouldReuseConnectionsAcrossBodilessReplies() throws Exception {
+        // Every removeUser gets a 204 on a kept-alive connection; a reply that ends the
+        // exchange twice lets the next request lose its first byte and fail with 405
+        for (int round = 0; round < 200; round++) {
+            users.addUser(4, "User 4", "user4@example.com", "USER", true);
+            assertEquals(200, get(users.getPort(), "/api/users/4").statusCode(), "Round " + round);
+            users.removeUser(4);
+            assertEquals(404, get(users.getPort(), "/api/users/4").statusCode(), "Round " + round);
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge every shard's change feed and resume each where it left off")
+    void shouldMergeChangeFeeds() {
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            // IDs 1 and 2 on different shards, so each connection has two upstream feeds to merge
+            int[] ids = ring.shardFor(1) != ring.shardFor(2) ? new int[] {1, 2} : new int[] {1, 3};
+            assertTrue(ring.shardFor(ids[0]) != ring.shardFor(ids[1]), "Test IDs should land on both shards");
+
+            String lastEventId = null;
+            try (BufferedReader feed = subscribe(null)) {
+                users.addUser(ids[0], "First", "first@example.com", "USER", true);
+                users.addUser(ids[1], "Second", "second@example.com", "USER", true);
+                Set<String> names = new HashSet<>();
+                for (int i = 0; i < 2; i++) {
+                    Map<String, String> event = nextEvent(feed);
+                    assertEquals("user.created", event.get("event"));
+                    names.add(objectMapper.readTree(event.get("data")).path("name").asText());
+                    lastEventId = event.get("id");
+                }
+                assertEquals(Set.of("First", "Second"), names);
+            }
+
+            // Missed while disconnected, on both shards
+            users.removeUser(ids[0]);
+            users.removeUser(ids[1]);
+            try (BufferedReader resumed = subscribe(lastEventId)) {
+                assertEquals("user.deleted", nextEvent(resumed).get("event"));
+                assertEquals("user.deleted", nextEvent(resumed).get("event"));
+            }
+
+            try (BufferedReader foreign = subscribe("42")) {
+                assertEquals("reset", nextEvent(foreign).get("event"));
+            }
+        });
+    }
+
+    private BufferedReader subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(users.getPort(), "/api/users/changes")).GET();
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElse(null));
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    // Reads "field: value" lines up to the next blank line, skipping comment-only blocks
+    private static Map<String, String> nextEvent(BufferedReader stream) throws IOException {
+        Map<String, String> event = new HashMap<>();
+        String line;
+        while ((line = stream.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                event.put(line.substring(0, colon), line.substring(colon + 1).trim());
+            }
+        }
+        throw new IOException("Stream closed");
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(port, path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, int port, String path, HttpRequest.BodyPublisher body)
+            throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(port, path))
+            .header("Content-Type", "application/json")
+            .method(method, body)
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
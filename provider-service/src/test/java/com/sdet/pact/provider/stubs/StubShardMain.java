@@ -0,0 +1,56 @@
+package com.sdet.pact.provider.stubs;
+
+import java.io.IOException;
+
+/**
+ * Entry point for a single stub shard process, started by {@link StubFleet}.
+ *
+ * Usage:
+ * <pre>
+ *   StubShardMain &lt;users|products&gt; &lt;port&gt; &lt;shardIndex&gt; &lt;shardCount&gt;
+ * </pre>
+ *
+ * Prints {@code READY <port>} once the stub is listening (port 0 picks a free
+ * port) and shuts down when standard input is closed, so a shard never
+ * outlives the JVM that started it.
+ */
+public class StubShardMain {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: StubShardMain <users|products> <port> <shardIndex> <shardCount>");
+            System.exit(1);
+        }
+        String kind = args[0];
+        int port = Integer.parseInt(args[1]);
+        int shardIndex = Integer.parseInt(args[2]);
+        ConsistentHashRing ring = new ConsistentHashRing(Integer.parseInt(args[3]));
+
+        int boundPort;
+        Runnable stop;
+        if ("users".equals(kind)) {
+            UserProviderStub stub = new UserProviderStub(port);
+            stub.setIdOwnership(id -> ring.shardFor(id) == shardIndex);
+            stub.start();
+            boundPort = stub.getPort();
+            stop = stub::stop;
+        } else if ("products".equals(kind)) {
+            ProductProviderStub stub = new ProductProviderStub(port);
+            stub.start();
+            boundPort = stub.getPort();
+            stop = stub::stop;
+        } else {
+            System.err.println("Unknown stub kind: " + kind);
+            System.exit(1);
+            return;
+        }
+
+        System.out.println("READY " + boundPort);
+        System.out.flush();
+
+        while (System.in.read() != -1) {
+            // Block until the parent closes our stdin (or dies)
+        }
+        stop.run();
+    }
+}
@@ -0,0 +1,154 @@
+package com.sdet.pact.provider.stubs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that tenants of one stub see only their own data, whether named
+ * by header or path prefix, and can be reset or dropped independently
+ */
+@DisplayName("Tenant Isolation Tests")
+public class TenantIsolationTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserProviderStub userStub;
+    private ProductProviderStub productStub;
+
+    @BeforeEach
+    void setup() {
+        userStub = new UserProviderStub(0);
+        userStub.start();
+        productStub = new ProductProviderStub(0);
+        productStub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userStub.stop();
+        productStub.stop();
+    }
+
+    @Test
+    @DisplayName("Should keep each tenant's users to itself")
+    void shouldIsolateUsers() throws Exception {
+        userStub.tenant("team-a").addUser(1, "Alice", "alice@example.com", "ADMIN", true);
+        userStub.addUser(1, "Default", "default@example.com", "USER", true);
+
+        assertEquals("Alice", name(get(userStub.getPort(), "/t/team-a/api/users/1", null)));
+        assertEquals("Alice", name(get(userStub.getPort(), "/api/users/1", "team-a")));
+        assertEquals("Default", name(get(userStub.getPort(), "/api/users/1", null)));
+        assertEquals(404, get(userStub.getPort(), "/t/team-b/api/users/1", null).statusCode());
+
+        // User creation is switched on per tenant
+        userStub.tenant("team-b").enableUserCreation();
+        assertEquals(201, post(userStub.getPort(), "/t/team-b/api/users", "{\"name\": \"Bob\"}", null).statusCode());
+        assertEquals(403, post(userStub.getPort(), "/api/users", "{\"name\": \"Bob\"}", "team-a").statusCode());
+        assertEquals(403, post(userStub.getPort(), "/api/users", "{\"name\": \"Bob\"}", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should set up a tenant through the admin API")
+    void shouldSetUpTenantOverAdminApi() throws Exception {
+        assertEquals(204, post(productStub.getPort(), "/t/shop/_admin/products",
+            "{\"id\": 7, \"name\": \"Desk\", \"price\": 120.0, \"category\": \"Furniture\", \"inStock\": true}", null)
+            .statusCode());
+        assertEquals(204, post(productStub.getPort(), "/_admin/products/7/details",
+            "{\"manufacturer\": \"WoodCo\", \"warranty\": \"1 year\", \"stock\": 3}", "shop").statusCode());
+
+        HttpResponse<String> product = get(productStub.getPort(), "/t/shop/api/products/7?includeDetails=true", null);
+        assertEquals(200, product.statusCode());
+        assertEquals("WoodCo", objectMapper.readTree(product.body()).path("details").path("manufacturer").asText());
+        assertEquals("[]", get(productStub.getPort(), "/api/products", null).body());
+        // State setup created the tenant; the default one always exists
+        assertEquals(List.of("default", "shop"), List.of(objectMapper.readValue(
+            get(productStub.getPort(), "/_admin/tenants", null).body(), String[].class)));
+    }
+
+    @Test
+    @DisplayName("Should reset and drop one tenant without touching others")
+    void shouldResetAndDropIndependently() throws Exception {
+        userStub.tenant("team-a").addUser(1, "Alice", "alice@example.com", "ADMIN", true);
+        userStub.tenant("team-b").addUser(1, "Bob", "bob@example.com", "USER", true);
+        userStub.tenant("team-c").addUser(1, "Carol", "carol@example.com", "USER", true);
+
+        assertEquals(204, post(userStub.getPort(), "/_admin/reset", "", "team-a").statusCode());
+        assertEquals(404, get(userStub.getPort(), "/t/team-a/api/users/1", null).statusCode());
+        assertEquals("Bob", name(get(userStub.getPort(), "/t/team-b/api/users/1", null)));
+
+        HttpResponse<String> drop = client.send(HttpRequest.newBuilder(uri(userStub.getPort(), "/_admin/tenants/team-b"))
+            .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, drop.statusCode());
+        assertEquals(Set.of("default", "team-a", "team-c"), userStub.tenantNames());
+        assertEquals("Carol", name(get(userStub.getPort(), "/t/team-c/api/users/1", null)));
+
+        // A whole-stub reset drops every tenant
+        userStub.reset();
+        assertEquals(404, get(userStub.getPort(), "/t/team-c/api/users/1", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should not create tenants for requests")
+    void shouldNotCreateTenantsOnRequests() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(404, get(userStub.getPort(), "/t/ghost-" + i + "/api/users/1", null).statusCode());
+            assertEquals("[]", get(productStub.getPort(), "/api/products", "ghost-" + i).body());
+        }
+        assertEquals(403, post(userStub.getPort(), "/api/users", "{\"name\": \"Bob\"}", "ghost").statusCode());
+        assertEquals(404, get(userStub.getPort(), "/t/ghost/api/users/changes", null).statusCode());
+        assertEquals(404, get(productStub.getPort(), "/api/products/changes", "ghost").statusCode());
+
+        assertEquals(Set.of("default"), userStub.tenantNames());
+        assertEquals(Set.of("default"), productStub.tenantNames());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid and conflicting tenant names")
+    void shouldRejectBadTenants() throws Exception {
+        assertEquals(400, get(userStub.getPort(), "/api/users/1", "no spaces").statusCode());
+        assertEquals(400, get(userStub.getPort(), "/t/team-a/api/users/1", "team-b").statusCode());
+        assertEquals(400, get(productStub.getPort(), "/api/products", "x".repeat(65)).statusCode());
+        assertThrows(IllegalArgumentException.class, () -> userStub.tenant("../etc"));
+    }
+
+    private String name(HttpResponse<String> response) throws Exception {
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("name").asText();
+    }
+
+    private HttpResponse<String> get(int port, String path, String tenant) throws Exception {
+        return client.send(request(port, path, tenant).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(int port, String path, String body, String tenant) throws Exception {
+        return client.send(request(port, path, tenant)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(int port, String path, String tenant) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(port, path));
+        if (tenant != null) {
+            request.header(Tenants.HEADER, tenant);
+        }
+        return request;
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
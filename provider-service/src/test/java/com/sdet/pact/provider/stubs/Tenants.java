@@ -0,0 +1,167 @@
+package com.sdet.pact.provider.stubs;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Tenant Namespaces
+ *
+ * Partitions a stub's state so one stub process can serve many test suites
+ * with isolated data. A request belongs to the tenant named by its
+ * {@code X-Stub-Tenant} header or by a {@code /t/<tenant>} path prefix
+ * (e.g. {@code /t/team-a/api/users/1}), and to {@code default} if it names
+ * none, so single-tenant clients are unaffected.
+ *
+ * Each tenant's data lives in one state object. Only state setup creates
+ * one ({@link #getOrCreate}); requests look tenants up with {@link #find}
+ * and treat an unknown one as empty, so traffic naming arbitrary tenants
+ * can't grow the map. The {@code default} tenant exists from the start.
+ * Resetting a tenant swaps in a fresh object and dropping it removes the
+ * map entry, so both are O(1) however much data the tenant holds; requests
+ * already holding the old object finish against it and it is left to the
+ * garbage collector.
+ */
+public class Tenants<S extends Tenants.State<S>> {
+
+    public static final String HEADER = "X-Stub-Tenant";
+    public static final String DEFAULT = "default";
+
+    private static final String PREFIX = "/t/";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    /**
+     * One tenant's data
+     */
+    public interface State<S> {
+
+        /**
+         * Empty state for the same tenant, keeping whatever has to outlive a
+         * reset (e.g. the change feed its subscribers are connected to)
+         */
+        S fresh();
+
+        /**
+         * Releases resources once the tenant is dropped
+         */
+        void close();
+    }
+
+    private final ConcurrentHashMap<String, S> states = new ConcurrentHashMap<>();
+    private final Function<String, S> create;
+
+    public Tenants(Function<String, S> create) {
+        this.create = create;
+        states.put(DEFAULT, create.apply(DEFAULT));
+    }
+
+    /**
+     * The tenant's state, creating it if needed; for state setup only
+     */
+    public S getOrCreate(String tenant) {
+        return states.computeIfAbsent(tenant, create);
+    }
+
+    /**
+     * The tenant's state, or {@code null} if nothing has set it up
+     */
+    public S find(String tenant) {
+        return states.get(tenant);
+    }
+
+    public void reset(String tenant) {
+        states.computeIfPresent(tenant, (name, state) -> state.fresh());
+    }
+
+    public boolean drop(String tenant) {
+        S state = states.remove(tenant);
+        if (state != null) {
+            state.close();
+        }
+        return state != null;
+    }
+
+    /**
+     * Drops every tenant except {@code default}, which is reset
+     */
+    public void clear() {
+        for (String tenant : states.keySet()) {
+            if (DEFAULT.equals(tenant)) {
+                reset(tenant);
+            } else {
+                drop(tenant);
+            }
+        }
+    }
+
+    /**
+     * Closes every tenant's resources, keeping the data
+     */
+    public void closeAll() {
+        states.values().forEach(State::close);
+    }
+
+    public Set<String> names() {
+        return new TreeSet<>(states.keySet());
+    }
+
+    /**
+     * Tenant the request names, or {@code null} if it names none
+     *
+     * @throws IllegalArgumentException if the name is invalid, or the header
+     *         and path prefix disagree
+     */
+    public static String requested(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst(HEADER);
+        String prefixed = null;
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith(PREFIX)) {
+            int end = path.indexOf('/', PREFIX.length());
+            prefixed = path.substring(PREFIX.length(), end < 0 ? path.length() : end);
+        }
+        if (header != null && prefixed != null && !header.equals(prefixed)) {
+            throw new IllegalArgumentException("Tenant header \"" + header + "\" conflicts with path tenant \""
+                + prefixed + "\"");
+        }
+        String tenant = header != null ? header : prefixed;
+        return tenant != null ? checkName(tenant) : null;
+    }
+
+    /**
+     * @throws IllegalArgumentException unless the name is 1-64 letters,
+     *         digits, {@code .}, {@code _} or {@code -}
+     */
+    public static String checkName(String tenant) {
+        if (!NAME.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Invalid tenant name");
+        }
+        return tenant;
+    }
+
+    /**
+     * Tenant the request belongs to, {@code default} if it names none
+     */
+    public static String of(HttpExchange exchange) {
+        String tenant = requested(exchange);
+        return tenant != null ? tenant : DEFAULT;
+    }
+
+    /**
+     * Request path without any {@code /t/<tenant>} prefix
+     */
+    public static String path(HttpExchange exchange) {
+        return stripPrefix(exchange.getRequestURI().getPath());
+    }
+
+    static String stripPrefix(String path) {
+        if (!path.startsWith(PREFIX)) {
+            return path;
+        }
+        int end = path.indexOf('/', PREFIX.length());
+        return end < 0 ? "/" : path.substring(end);
+    }
+}
@@ -1,81 +1,198 @@
 package com.sdet.pact.provider.stubs;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sdet.pact.provider.codec.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 
 /**
  * Stub implementation of User Provider Service
  * 
  * This is a lightweight HTTP server that simulates the provider service
  * for verification testing purposes.
+ *
+ * Users are immutable, versioned records. Writes swap in a new record with
+ * {@code replace(id, expected, updated)} / {@code remove(id, expected)} and
+ * retry if another request got there first, so concurrent updates and
+ * deletes never lose data and never share a lock. The version is exposed
+ * as an {@code ETag}; a PUT or DELETE whose {@code If-Match} does not match
+ * the current version is rejected with 409. Versions come from one counter
+ * for the whole stub, so a tag is never reused, not even by a user
+ * recreated under the same ID after a delete or reset.
+ *
+ * Create, update and admin setup bodies are streamed into typed fields
+ * with size and depth limits (see {@link JsonBodyReader}); oversized bodies
+ * get 413, malformed or too deeply nested ones 400.
+ *
+ * Every write is also published on {@code GET /api/users/changes} (see
+ * {@link ChangeFeed}). Events carry the record's version, since concurrent
+ * writes to one user may publish out of order; apply only newer versions.
+ *
+ * Users, the creation switch and the change feed are kept per tenant (see
+ * {@link Tenants}); every endpoint is also served under {@code /t/<tenant>}.
+ * The {@link UserStub} methods set up the {@code default} tenant and
+ * {@link #tenant(String)} gives a {@link UserSetup} for any other. Only state
+ * setup creates a tenant; requests for one it hasn't created see no users,
+ * and its change feed is a 404.
  */
-public class UserProviderStub {
+public class UserProviderStub implements UserStub {
 
     private HttpServer server;
+    private ExecutorService executor;
     private final int port;
-    private final Map<Integer, User> users = new HashMap<>();
+    private final Executor sharedExecutor;
+    private final Tenants<UserData> tenants = new Tenants<>(tenant -> new UserData(new ChangeFeed("users-" + tenant)));
+    // Stands in for tenants nothing has set up: no users and creation off, so requests never write to it
+    private final UserData noUsers = new UserData(null);
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private boolean userCreationEnabled = false;
+    private final JsonBodyReader bodyReader = JsonBodyReader.fromSystemProperties();
+    private volatile IntPredicate ownsId = id -> true;
+    // Source of every record's version; never reset, so an ETag names one record for good
+    private final AtomicLong versions = new AtomicLong();
 
     public UserProviderStub(int port) {
+        this(port, null);
+    }
+
+    /**
+     * Runs request handlers on {@code executor}, which stays owned by the
+     * caller and is not shut down by {@link #stop()}; {@code null} gives the
+     * stub its own cached pool
+     */
+    public UserProviderStub(int port, Executor executor) {
         this.port = port;
+        this.sharedExecutor = executor;
     }
 
+    @Override
     public void start() {
         try {
             server = HttpServer.create(new InetSocketAddress(port), 0);
 
             // Handle all /api/users requests
             server.createContext("/api/users", this::handleUserRequests);
+            server.createContext("/api/users/changes", this::handleChanges);
+
+            // State setup over HTTP, used when the stub runs in another process
+            server.createContext("/_admin", this::handleAdmin);
+
+            // The same endpoints for a tenant named in the path
+            server.createContext("/t/", this::handleTenantPath);
             
-            server.setExecutor(null);
+            if (sharedExecutor != null) {
+                server.setExecutor(sharedExecutor);
+            } else {
+                executor = Executors.newCachedThreadPool();
+                server.setExecutor(executor);
+            }
             server.start();
-            System.out.println("User Provider Stub started on port " + port);
+            System.out.println("User Provider Stub started on port " + getPort());
         } catch (IOException e) {
             throw new RuntimeException("Failed to start stub server", e);
         }
     }
 
+    @Override
     public void stop() {
         if (server != null) {
+            tenants.closeAll();
             server.stop(0);
+            if (executor != null) {
+                executor.shutdown();
+            }
             System.out.println("User Provider Stub stopped");
         }
     }
 
+    /**
+     * Actual listening port, useful when the stub was created with port 0
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * The {@code /_admin} state-setup handler, for hosting it on another
+     * server next to other stubs' admin handlers
+     */
+    public HttpHandler adminHandler() {
+        return this::handleAdmin;
+    }
+
+    private void handleTenantPath(HttpExchange exchange) throws IOException {
+        String path = Tenants.path(exchange);
+        if (path.startsWith("/api/users/changes")) {
+            handleChanges(exchange);
+        } else if (path.startsWith("/api/users")) {
+            handleUserRequests(exchange);
+        } else if (path.startsWith("/_admin")) {
+            handleAdmin(exchange);
+        } else {
+            sendError(exchange, 404, "Not found");
+        }
+    }
+
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        UserData data = tenantData(exchange);
+        if (data == noUsers) {
+            // Its feed would be gone once state setup creates the tenant
+            sendError(exchange, 404, "Tenant not found");
+        } else if (data != null) {
+            // Started on first subscriber, so idle tenants cost no thread
+            data.changes.start();
+            data.changes.subscribe(exchange);
+        }
+    }
+
     private void handleUserRequests(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
+        String path = Tenants.path(exchange);
+        UserData data = tenantData(exchange);
+        if (data == null) {
+            return;
+        }
 
         if ("POST".equals(method) && path.equals("/api/users")) {
-            handleCreateUser(exchange);
+            handleCreateUser(exchange, data);
         } else if ("GET".equals(method) && path.startsWith("/api/users/")) {
-            handleGetUserById(exchange, path);
+            handleGetUserById(exchange, path, data);
         } else if ("PUT".equals(method) && path.startsWith("/api/users/")) {
-            handleUpdateUser(exchange, path);
+            handleUpdateUser(exchange, path, data);
         } else if ("DELETE".equals(method) && path.startsWith("/api/users/")) {
-            handleDeleteUser(exchange, path);
+            handleDeleteUser(exchange, path, data);
         } else {
             sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
         }
     }
 
-    private void handleGetUserById(HttpExchange exchange, String path) throws IOException {
+    private void handleGetUserById(HttpExchange exchange, String path, UserData data) throws IOException {
         try {
             String[] parts = path.split("/");
             int userId = Integer.parseInt(parts[parts.length - 1]);
             
-            User user = users.get(userId);
-            if (user != null) {
-                String response = objectMapper.writeValueAsString(user);
-                sendResponse(exchange, 200, response);
+            User user = data.users.get(userId);
+            if (user != null && user.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                // Client's cached copy is current
+                exchange.getResponseHeaders().set("ETag", user.etag());
+                exchange.getRequestBody().close();
+                exchange.sendResponseHeaders(304, -1);
+            } else if (user != null) {
+                exchange.getResponseHeaders().set("ETag", user.etag());
+                sendResponse(exchange, 200, UserCodec.encode(user));
             } else {
                 String errorResponse = String.format(
                     "{\"error\": \"User not found\", \"status\": 404}");
@@ -86,122 +203,451 @@ public class UserProviderStub {
         }
     }
 
-    private void handleCreateUser(HttpExchange exchange) throws IOException {
-        if (!userCreationEnabled) {
+    private void handleCreateUser(HttpExchange exchange, UserData data) throws IOException {
+        if (!data.userCreationEnabled) {
             sendResponse(exchange, 403, "{\"error\": \"User creation not allowed\"}");
             return;
         }
 
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        Map<String, Object> userData = objectMapper.readValue(requestBody, Map.class);
-        
-        int newId = users.size() + 1;
-        User newUser = new User(
-            newId,
-            (String) userData.get("name"),
-            (String) userData.get("email"),
-            (String) userData.get("role"),
-            true
-        );
-        
-        users.put(newId, newUser);
-        String response = objectMapper.writeValueAsString(newUser);
-        sendResponse(exchange, 201, response);
-    }
-
-    private void handleUpdateUser(HttpExchange exchange, String path) throws IOException {
+        UserWrite userData;
+        try {
+            userData = readUserWrite(exchange);
+        } catch (JsonBodyReader.RejectedBodyException e) {
+            sendRejected(exchange, e);
+            return;
+        }
+
+        // Claim the first free ID with putIfAbsent so concurrent creates never collide
+        User newUser;
+        for (int newId = data.users.size() + 1; ; newId++) {
+            if (!ownsId.test(newId)) {
+                continue;
+            }
+            newUser = new User(
+                newId,
+                userData.name,
+                userData.email,
+                userData.role,
+                true,
+                versions.incrementAndGet()
+            );
+            if (data.users.putIfAbsent(newId, newUser) == null) {
+                break;
+            }
+        }
+        publish(data, "user.created", newUser);
+
+        exchange.getResponseHeaders().set("ETag", newUser.etag());
+        sendResponse(exchange, 201, UserCodec.encode(newUser));
+    }
+
+    private void handleUpdateUser(HttpExchange exchange, String path, UserData data) throws IOException {
         try {
             String[] parts = path.split("/");
             int userId = Integer.parseInt(parts[parts.length - 1]);
             
-            if (!users.containsKey(userId)) {
-                sendResponse(exchange, 404, "{\"error\": \"User not found\"}");
-                return;
+            UserWrite updateData = readUserWrite(exchange);
+            String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+
+            User updatedUser;
+            while (true) {
+                User existingUser = data.users.get(userId);
+                if (existingUser == null) {
+                    sendResponse(exchange, 404, "{\"error\": \"User not found\"}");
+                    return;
+                }
+                if (!existingUser.matches(ifMatch)) {
+                    sendConflict(exchange, existingUser);
+                    return;
+                }
+                updatedUser = new User(
+                    userId,
+                    updateData.hasName ? updateData.name : existingUser.name,
+                    updateData.hasEmail ? updateData.email : existingUser.email,
+                    existingUser.role,
+                    existingUser.active,
+                    versions.incrementAndGet()
+                );
+                // Only succeeds if nobody replaced or deleted the record since we read it
+                if (data.users.replace(userId, existingUser, updatedUser)) {
+                    break;
+                }
             }
+            publish(data, "user.updated", updatedUser);
 
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> updateData = objectMapper.readValue(requestBody, Map.class);
-            
-            User existingUser = users.get(userId);
-            User updatedUser = new User(
-                userId,
-                (String) updateData.getOrDefault("name", existingUser.name),
-                (String) updateData.getOrDefault("email", existingUser.email),
-                existingUser.role,
-                existingUser.active
-            );
-            
-            users.put(userId, updatedUser);
-            String response = objectMapper.writeValueAsString(updatedUser);
-            sendResponse(exchange, 200, response);
+            exchange.getResponseHeaders().set("ETag", updatedUser.etag());
+            sendResponse(exchange, 200, UserCodec.encode(updatedUser));
         } catch (NumberFormatException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid user ID\"}");
+        } catch (JsonBodyReader.RejectedBodyException e) {
+            sendRejected(exchange, e);
         }
     }
 
-    private void handleDeleteUser(HttpExchange exchange, String path) throws IOException {
+    private UserWrite readUserWrite(HttpExchange exchange) throws IOException {
+        UserWrite write = new UserWrite();
+        bodyReader.readObject(exchange, (field, parser) -> {
+            switch (field) {
+                case "name":
+                    write.name = JsonBodyReader.text(parser);
+                    write.hasName = true;
+                    break;
+                case "email":
+                    write.email = JsonBodyReader.text(parser);
+                    write.hasEmail = true;
+                    break;
+                case "role":
+                    write.role = JsonBodyReader.text(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return write;
+    }
+
+    private User readUser(HttpExchange exchange) throws IOException {
+        User user = new User();
+        bodyReader.readObject(exchange, (field, parser) -> {
+            switch (field) {
+                case "id":
+                    user.id = JsonBodyReader.integer(parser);
+                    break;
+                case "name":
+                    user.name = JsonBodyReader.text(parser);
+                    break;
+                case "email":
+                    user.email = JsonBodyReader.text(parser);
+                    break;
+                case "role":
+                    user.role = JsonBodyReader.text(parser);
+                    break;
+                case "active":
+                    user.active = JsonBodyReader.bool(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return user;
+    }
+
+    private void handleDeleteUser(HttpExchange exchange, String path, UserData data) throws IOException {
         try {
             String[] parts = path.split("/");
             int userId = Integer.parseInt(parts[parts.length - 1]);
             
-            if (users.remove(userId) != null) {
-                sendResponse(exchange, 204, "");
-            } else {
-                sendResponse(exchange, 404, "{\"error\": \"User not found\"}");
+            String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+            while (true) {
+                User existingUser = data.users.get(userId);
+                if (existingUser == null) {
+                    sendResponse(exchange, 404, "{\"error\": \"User not found\"}");
+                    return;
+                }
+                if (!existingUser.matches(ifMatch)) {
+                    sendConflict(exchange, existingUser);
+                    return;
+                }
+                if (data.users.remove(userId, existingUser)) {
+                    publish(data, "user.deleted", existingUser);
+                    sendResponse(exchange, 204, "");
+                    return;
+                }
             }
         } catch (NumberFormatException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid user ID\"}");
         }
     }
 
+    private void handleAdmin(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = Tenants.path(exchange);
+        UserSetup target;
+        try {
+            // Without a tenant, setup goes to the default one and a reset clears the whole stub
+            String tenant = Tenants.requested(exchange);
+            target = tenant != null ? tenant(tenant) : this;
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        try {
+            if ("POST".equals(method) && path.equals("/_admin/users")) {
+                User user = readUser(exchange);
+                target.addUser(user.id, user.name, user.email, user.role, user.active);
+                sendResponse(exchange, 204, "");
+            } else if ("DELETE".equals(method) && path.startsWith("/_admin/users/")) {
+                try {
+                    String[] parts = path.split("/");
+                    target.removeUser(Integer.parseInt(parts[parts.length - 1]));
+                    sendResponse(exchange, 204, "");
+                } catch (NumberFormatException e) {
+                    sendResponse(exchange, 400, "{\"error\": \"Invalid user ID\"}");
+                }
+            } else if ("POST".equals(method) && path.equals("/_admin/user-creation")) {
+                boolean[] enabled = new boolean[1];
+                bodyReader.readObject(exchange, (field, parser) -> {
+                    if ("enabled".equals(field)) {
+                        enabled[0] = JsonBodyReader.bool(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                });
+                if (enabled[0]) {
+                    target.enableUserCreation();
+                } else {
+                    target.disableUserCreation();
+                }
+                sendResponse(exchange, 204, "");
+            } else if ("POST".equals(method) && path.equals("/_admin/reset")) {
+                target.reset();
+                sendResponse(exchange, 204, "");
+            } else if ("GET".equals(method) && path.equals("/_admin/tenants")) {
+                sendResponse(exchange, 200, objectMapper.writeValueAsBytes(tenantNames()));
+            } else if ("DELETE".equals(method) && path.startsWith("/_admin/tenants/")) {
+                String[] parts = path.split("/");
+                if (dropTenant(parts[parts.length - 1])) {
+                    sendResponse(exchange, 204, "");
+                } else {
+                    sendError(exchange, 404, "Tenant not found");
+                }
+            } else {
+                sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
+            }
+        } catch (JsonBodyReader.RejectedBodyException e) {
+            sendRejected(exchange, e);
+        }
+    }
+
+    // null once a 400 has been sent for an invalid tenant; a tenant nothing has set up reads as empty
+    private UserData tenantData(HttpExchange exchange) throws IOException {
+        try {
+            UserData data = tenants.find(Tenants.of(exchange));
+            return data != null ? data : noUsers;
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return null;
+        }
+    }
+
+    private void publish(UserData data, String type, User user) throws IOException {
+        ObjectNode event = objectMapper.valueToTree(user);
+        event.put("version", user.version);
+        data.changes.publish(type, objectMapper.writeValueAsString(event));
+    }
+
+    private void sendRejected(HttpExchange exchange, JsonBodyReader.RejectedBodyException e) throws IOException {
+        sendError(exchange, e.status(), e.getMessage());
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode()
+            .put("error", message)
+            .put("status", statusCode);
+        sendResponse(exchange, statusCode, objectMapper.writeValueAsBytes(error));
+    }
+
+    private void sendConflict(HttpExchange exchange, User current) throws IOException {
+        exchange.getResponseHeaders().set("ETag", current.etag());
+        sendResponse(exchange, 409, "{\"error\": \"Version conflict\", \"status\": 409}");
+    }
+
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        sendResponse(exchange, statusCode, response.getBytes());
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, byte[] bytes) throws IOException {
         exchange.getResponseHeaders().add("Content-Type", "application/json");
-        byte[] bytes = response.getBytes();
-        exchange.sendResponseHeaders(statusCode, bytes.length);
+        // A bodiless exchange ends inside sendResponseHeaders, and the JDK server drops the
+        // keep-alive connection if the request body is unread at that point
+        exchange.getRequestBody().close();
+        // -1 means no body; 0 would ask for chunked encoding, which the JDK server logs a warning about on a 204
+        exchange.sendResponseHeaders(statusCode, bytes.length > 0 ? bytes.length : -1);
 
         if (bytes.length > 0) {
             try (OutputStream os = exchange.getResponseBody()) {
                 os.write(bytes);
             }
-        } else {
-            exchange.getResponseBody().close();
         }
+        // Without a body the exchange is already over: closing the response stream again
+        // would hand the connection back twice, and two readers would race for the next request
     }
 
-    // Public methods for test setup
+    // Public methods for test setup, against the default tenant
 
+    @Override
     public void addUser(int id, String name, String email, String role, boolean active) {
-        users.put(id, new User(id, name, email, role, active));
+        addUser(tenants.getOrCreate(Tenants.DEFAULT), id, name, email, role, active);
     }
 
+    @Override
     public void removeUser(int id) {
-        users.remove(id);
+        removeUser(tenants.getOrCreate(Tenants.DEFAULT), id);
     }
 
+    @Override
     public void enableUserCreation() {
-        this.userCreationEnabled = true;
+        tenants.getOrCreate(Tenants.DEFAULT).userCreationEnabled = true;
     }
 
+    @Override
     public void disableUserCreation() {
-        this.userCreationEnabled = false;
+        tenants.getOrCreate(Tenants.DEFAULT).userCreationEnabled = false;
+    }
+
+    /**
+     * Drops every tenant and empties the default one
+     */
+    @Override
+    public void reset() {
+        tenants.clear();
+    }
+
+    /**
+     * State setup for one tenant, e.g. for the @State handlers of a suite
+     * whose requests carry {@code X-Stub-Tenant}; {@code reset()} on it
+     * resets only that tenant
+     */
+    public UserSetup tenant(String name) {
+        return new TenantView(Tenants.checkName(name));
+    }
+
+    public boolean dropTenant(String name) {
+        return tenants.drop(name);
     }
 
-    // Inner class representing User entity
+    public Set<String> tenantNames() {
+        return tenants.names();
+    }
+
+    private void addUser(UserData data, int id, String name, String email, String role, boolean active) {
+        User user = new User(id, name, email, role, active, versions.incrementAndGet());
+        User previous = data.users.put(id, user);
+        publishQuietly(data, previous == null ? "user.created" : "user.updated", user);
+    }
+
+    private void removeUser(UserData data, int id) {
+        User removed = data.users.remove(id);
+        if (removed != null) {
+            publishQuietly(data, "user.deleted", removed);
+        }
+    }
+
+    private void publishQuietly(UserData data, String type, User user) {
+        try {
+            publish(data, type, user);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to publish " + type, e);
+        }
+    }
+
+    /**
+     * Restricts the IDs handed out by POST /api/users, so that a shard only
+     * creates users it owns on the consistent hash ring
+     */
+    public void setIdOwnership(IntPredicate ownsId) {
+        this.ownsId = ownsId;
+    }
+
+    // One tenant's users; a reset swaps in a new instance sharing the change feed
+    private static class UserData implements Tenants.State<UserData> {
+        final ConcurrentHashMap<Integer, User> users = new ConcurrentHashMap<>();
+        final ChangeFeed changes;
+        volatile boolean userCreationEnabled;
+
+        UserData(ChangeFeed changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public UserData fresh() {
+            changes.reset();
+            return new UserData(changes);
+        }
+
+        @Override
+        public void close() {
+            changes.close();
+        }
+    }
+
+    // State setup for one tenant; the owning stub is started and stopped as a whole
+    private class TenantView implements UserSetup {
+        private final String name;
+
+        TenantView(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void reset() {
+            tenants.reset(name);
+        }
+
+        @Override
+        public void addUser(int id, String userName, String email, String role, boolean active) {
+            UserProviderStub.this.addUser(tenants.getOrCreate(name), id, userName, email, role, active);
+        }
+
+        @Override
+        public void removeUser(int id) {
+            UserProviderStub.this.removeUser(tenants.getOrCreate(name), id);
+        }
+
+        @Override
+        public void enableUserCreation() {
+            tenants.getOrCreate(name).userCreationEnabled = true;
+        }
+
+        @Override
+        public void disableUserCreation() {
+            tenants.getOrCreate(name).userCreationEnabled = false;
+        }
+    }
+
+    // Fields a create or update body may set; the has* flags tell an explicit null from an absent field
+    private static class UserWrite {
+        String name;
+        String email;
+        String role;
+        boolean hasName;
+        boolean hasEmail;
+    }
+
+    // Inner class representing User entity; UserCodec is generated from it
+    @JsonCodec
     public static class User {
         public int id;
         public String name;
         public String email;
         public String role;
         public boolean active;
+        @JsonIgnore
+        public long version = 1;
 
         public User() {}
 
         public User(int id, String name, String email, String role, boolean active) {
+            this(id, name, email, role, active, 1);
+        }
+
+        public User(int id, String name, String email, String role, boolean active, long version) {
             this.id = id;
             this.name = name;
             this.email = email;
             this.role = role;
             this.active = active;
+            this.version = version;
+        }
+
+        String etag() {
+            return "\"" + version + "\"";
+        }
+
+        // No If-Match header means an unconditional write
+        boolean matches(String ifMatch) {
+            return ifMatch == null || ifMatch.trim().equals("*") || ifMatch.trim().equals(etag());
         }
     }
 }
@@ -0,0 +1,147 @@
+package com.sdet.pact.provider.stubs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hammers one user with concurrent conditional updates and checks that
+ * every successful write replaced a distinct version and the last one won
+ */
+@DisplayName("User Provider Stub Concurrency Tests")
+public class UserProviderStubConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 25;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    // If-Match of every accepted update, and the version it produced
+    private final Set<String> replaced = ConcurrentHashMap.newKeySet();
+    private final Set<Long> written = ConcurrentHashMap.newKeySet();
+    private UserProviderStub providerStub;
+    private URI userUri;
+
+    @BeforeEach
+    void setup() {
+        providerStub = new UserProviderStub(0);
+        providerStub.start();
+        userUri = URI.create("http://localhost:" + providerStub.getPort() + "/api/users/1");
+        providerStub.addUser(1, "John Doe", "john.doe@example.com", "ADMIN", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        providerStub.stop();
+    }
+
+    @Test
+    @DisplayName("Should apply every conditional update exactly once")
+    void shouldNotLoseConcurrentUpdates() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<Integer>> conflicts = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int id = writer;
+                conflicts.add(writers.submit(() -> updateRepeatedly(id)));
+            }
+            for (Future<Integer> result : conflicts) {
+                result.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(userUri).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        // Versions come from a counter shared by all records and a lost race still draws one,
+        // so count the writes: each accepted If-Match must be distinct, or two writers overwrote one version
+        assertEquals(WRITERS * UPDATES_PER_WRITER, replaced.size());
+        assertEquals(WRITERS * UPDATES_PER_WRITER, written.size());
+        assertEquals(Collections.max(written), etagVersion(response.headers().firstValue("ETag").orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Should not resurrect a user deleted during an update")
+    void shouldNotResurrectDeletedUser() throws Exception {
+        String etag = client.send(HttpRequest.newBuilder(userUri).GET().build(), HttpResponse.BodyHandlers.discarding())
+            .headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<Void> delete = client.send(HttpRequest.newBuilder(userUri).DELETE().build(),
+            HttpResponse.BodyHandlers.discarding());
+        assertEquals(204, delete.statusCode());
+
+        assertEquals(404, put(etag, "Too Late").statusCode());
+        assertEquals(404, client.send(HttpRequest.newBuilder(userUri).GET().build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should not accept a deleted user's ETag for a recreated one")
+    void shouldNotReuseETagAfterRecreate() throws Exception {
+        String stale = client.send(HttpRequest.newBuilder(userUri).GET().build(), HttpResponse.BodyHandlers.discarding())
+            .headers().firstValue("ETag").orElseThrow();
+
+        // Recreated under the same ID, both through a delete and through a reset
+        assertEquals(204, client.send(HttpRequest.newBuilder(userUri).DELETE().build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode());
+        providerStub.addUser(1, "Jane Doe", "jane.doe@example.com", "USER", true);
+        assertEquals(409, put(stale, "Stale Write").statusCode());
+
+        providerStub.reset();
+        providerStub.addUser(1, "Jane Doe", "jane.doe@example.com", "USER", true);
+        assertEquals(409, put(stale, "Stale Write").statusCode());
+        assertEquals(200, client.send(HttpRequest.newBuilder(userUri).header("If-None-Match", stale).GET().build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    // Read-modify-write with If-Match, retrying on 409; returns the number of conflicts seen
+    private int updateRepeatedly(int writer) throws Exception {
+        int conflicts = 0;
+        for (int update = 0; update < UPDATES_PER_WRITER; update++) {
+            while (true) {
+                String etag = client.send(HttpRequest.newBuilder(userUri).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").orElseThrow();
+                HttpResponse<String> response = put(etag, "Writer " + writer + " #" + update);
+                int status = response.statusCode();
+                if (status == 200) {
+                    replaced.add(etag);
+                    written.add(etagVersion(response.headers().firstValue("ETag").orElseThrow()));
+                    break;
+                }
+                assertEquals(409, status);
+                conflicts++;
+            }
+        }
+        return conflicts;
+    }
+
+    private static long etagVersion(String etag) {
+        return Long.parseLong(etag.replace("\"", ""));
+    }
+
+    private HttpResponse<String> put(String etag, String name) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(userUri)
+            .header("Content-Type", "application/json")
+            .header("If-Match", etag)
+            .PUT(HttpRequest.BodyPublishers.ofString("{\"name\": \"" + name + "\"}"))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
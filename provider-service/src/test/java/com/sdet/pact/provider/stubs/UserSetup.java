@@ -0,0 +1,18 @@
+package com.sdet.pact.provider.stubs;
+
+/**
+ * State setup for one set of users: a whole stub or fleet (see
+ * {@link UserStub}) or a single tenant of one
+ */
+public interface UserSetup {
+
+    void reset();
+
+    void addUser(int id, String name, String email, String role, boolean active);
+
+    void removeUser(int id);
+
+    void enableUserCreation();
+
+    void disableUserCreation();
+}
@@ -0,0 +1,12 @@
+package com.sdet.pact.provider.stubs;
+
+/**
+ * State-setup surface shared by the in-process {@link UserProviderStub} and
+ * the sharded {@link UserStubFleet}, so @State handlers work against either
+ */
+public interface UserStub extends UserSetup {
+
+    void start();
+
+    void stop();
+}
@@ -0,0 +1,53 @@
+package com.sdet.pact.provider.stubs;
+
+import java.util.Map;
+
+/**
+ * {@link UserProviderStub} sharded by user ID across {@code shardCount} processes
+ */
+public class UserStubFleet extends StubFleet implements UserStub {
+
+    public UserStubFleet(int port, int shardCount) {
+        super("users", port, shardCount);
+    }
+
+    public UserStubFleet(int port, int shardCount, int warmUpRounds) {
+        super("users", port, shardCount, warmUpRounds);
+    }
+
+    @Override
+    protected void exercise() {
+        for (int id = 1; id <= 4; id++) {
+            addUser(id, "Warm Up", "warm.up@example.com", "USER", true);
+            probe("/api/users/" + id);
+            removeUser(id);
+        }
+        probe("/api/users/999");
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        broadcast("POST", "/_admin/reset", null);
+    }
+
+    @Override
+    public void addUser(int id, String name, String email, String role, boolean active) {
+        admin(shardFor(id), "POST", "/_admin/users", new UserProviderStub.User(id, name, email, role, active));
+    }
+
+    @Override
+    public void removeUser(int id) {
+        admin(shardFor(id), "DELETE", "/_admin/users/" + id, null);
+    }
+
+    @Override
+    public void enableUserCreation() {
+        broadcast("POST", "/_admin/user-creation", Map.of("enabled", true));
+    }
+
+    @Override
+    public void disableUserCreation() {
+        broadcast("POST", "/_admin/user-creation", Map.of("enabled", false));
+    }
+}
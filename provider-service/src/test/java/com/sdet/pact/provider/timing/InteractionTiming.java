@@ -0,0 +1,56 @@
+package com.sdet.pact.provider.timing;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Timing breakdown of a single verified interaction, in milliseconds
+ */
+public class InteractionTiming {
+    public String consumer;
+    public String description;
+    public double stateSetupMs;
+    public double requestMs;
+    public double matchingMs;
+    public double totalMs;
+
+    public InteractionTiming() {}
+
+    public InteractionTiming(String consumer, String description,
+                             long stateSetupNanos, long requestNanos, long verifyNanos) {
+        this.consumer = consumer;
+        this.description = description;
+        this.stateSetupMs = toMillis(stateSetupNanos);
+        this.requestMs = toMillis(requestNanos);
+        this.matchingMs = toMillis(Math.max(0, verifyNanos - requestNanos));
+        this.totalMs = toMillis(stateSetupNanos + verifyNanos);
+    }
+
+    /**
+     * Per-phase median over several rounds of the same interaction
+     */
+    public static InteractionTiming median(List<InteractionTiming> rounds) {
+        InteractionTiming median = new InteractionTiming();
+        median.consumer = rounds.get(0).consumer;
+        median.description = rounds.get(0).description;
+        median.stateSetupMs = median(rounds, timing -> timing.stateSetupMs);
+        median.requestMs = median(rounds, timing -> timing.requestMs);
+        median.matchingMs = median(rounds, timing -> timing.matchingMs);
+        median.totalMs = median(rounds, timing -> timing.totalMs);
+        return median;
+    }
+
+    public String key() {
+        return consumer + " / " + description;
+    }
+
+    private static double median(List<InteractionTiming> rounds, ToDoubleFunction<InteractionTiming> phase) {
+        double[] values = rounds.stream().mapToDouble(phase).sorted().toArray();
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,265 @@
+package com.sdet.pact.provider.timing;
+
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+import au.com.dius.pact.provider.junit5.PactVerificationContext;
+import au.com.dius.pact.provider.junit5.PactVerificationInvocationContextProvider;
+import au.com.dius.pact.provider.junitsupport.Provider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Interaction Timing Extension
+ *
+ * Breaks each verified interaction down into state-setup time, request
+ * latency and pact-jvm matching time:
+ * - state setup: from this extension's beforeTestExecution (registered on the
+ *   class, so it runs before pact-jvm's state change extension) until the
+ *   test method starts
+ * - request: time spent inside the {@link TimedHttpTestTarget}
+ * - matching: the rest of {@code verifyInteraction()}
+ *
+ * The extension also stands in for pact-jvm's
+ * {@link PactVerificationInvocationContextProvider}. Timing is opt-in with
+ * {@code -Dpact.timing=true} (the {@code timing} Maven profile): the normal
+ * build verifies every interaction once and only reports its timings. With
+ * timing on, every interaction is verified {@code pact.timing.warmUpRounds}
+ * times (default 5) untimed, so class loading and JIT don't land on
+ * whichever interaction runs first, and then {@code pact.timing.rounds}
+ * times (default 5) timed. Each phase is reported as its median over the
+ * timed rounds.
+ *
+ * Each timing is attached to the Allure result, and the whole run is
+ * written to {@code target/pact-timings/<provider>.json}. With timing on,
+ * the class fails unless every interaction has a baseline in
+ * {@code src/test/resources/pact-timings/<provider>.json}, and when any
+ * phase is slower than its baseline by more than
+ * {@code pact.timing.threshold} (a ratio, default 1.0 = +100%) and by more
+ * than {@code pact.timing.minDeltaMs} (default 10) in absolute terms, which
+ * keeps scheduler noise from failing the build. Baselines are recorded
+ * with more timed rounds, e.g. {@code -Dpact.timing.rounds=15}. Set-ups
+ * with different costs, such as a sharded fleet, are kept apart as
+ * variants (see the constructor).
+ *
+ * Usage (instead of {@code @ExtendWith(PactVerificationInvocationContextProvider.class)}):
+ * <pre>
+ *   &#64;RegisterExtension
+ *   static final InteractionTimingExtension timings = new InteractionTimingExtension();
+ *
+ *   context.setTarget(timings.target("localhost", PORT));   // in &#64;BeforeEach
+ *   timings.verify(context);                                // in verifyPact
+ * </pre>
+ */
+public class InteractionTimingExtension extends PactVerificationInvocationContextProvider
+    implements BeforeAllCallback, BeforeTestExecutionCallback, AfterAllCallback {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final AtomicLong requestNanos = new AtomicLong();
+    private final boolean enabled = Boolean.getBoolean("pact.timing");
+    private final int warmUpRounds = enabled ? Integer.getInteger("pact.timing.warmUpRounds", 5) : 0;
+    private final int rounds = enabled ? Math.max(1, Integer.getInteger("pact.timing.rounds", 5)) : 1;
+    // interaction key -> one timing per timed round
+    private final Map<String, List<InteractionTiming>> timings = new LinkedHashMap<>();
+    private final String variant;
+    private String provider;
+    private long invocationStart;
+    private int round;
+
+    public InteractionTimingExtension() {
+        this(null);
+    }
+
+    /**
+     * @param variant names a provider set-up whose timings aren't comparable
+     *        with the default one (e.g. a sharded stub fleet); its report and
+     *        baseline are {@code <provider>-<variant>.json}, and a missing
+     *        baseline is reported rather than failing the class
+     */
+    public InteractionTimingExtension(String variant) {
+        this.variant = variant;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        Provider annotation = context.getRequiredTestClass().getAnnotation(Provider.class);
+        provider = annotation != null ? annotation.value() : context.getRequiredTestClass().getSimpleName();
+        timings.clear();
+    }
+
+    @Override
+    public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(ExtensionContext context) {
+        return IntStream.range(0, warmUpRounds + rounds).boxed()
+            .flatMap(round -> super.provideTestTemplateInvocationContexts(context)
+                .map(invocation -> new RoundInvocation(invocation, round)));
+    }
+
+    /**
+     * Whether the current invocation is in the last timed round, e.g. to run
+     * slower checks such as latency budgets only once per interaction
+     */
+    public boolean isLastRound() {
+        return round == warmUpRounds + rounds - 1;
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        requestNanos.set(0);
+        invocationStart = System.nanoTime();
+    }
+
+    public HttpTestTarget target(String host, int port) {
+        return new TimedHttpTestTarget(host, port, requestNanos);
+    }
+
+    public void verify(PactVerificationContext context) {
+        long verifyStart = System.nanoTime();
+        long stateSetup = verifyStart - invocationStart;
+        try {
+            context.verifyInteraction();
+        } finally {
+            if (round >= warmUpRounds) {
+                InteractionTiming timing = new InteractionTiming(
+                    context.getConsumer().getName(),
+                    context.getInteraction().getDescription(),
+                    stateSetup, requestNanos.get(), System.nanoTime() - verifyStart);
+                timings.computeIfAbsent(timing.key(), key -> new ArrayList<>()).add(timing);
+                attach(timing);
+            }
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws IOException {
+        TimingReport report = new TimingReport(provider);
+        report.rounds = rounds;
+        timings.values().forEach(samples -> report.interactions.add(InteractionTiming.median(samples)));
+
+        File reportDir = new File(System.getProperty("pact.timing.reportDir", "target/pact-timings"));
+        reportDir.mkdirs();
+        String reportName = variant == null ? provider : provider + "-" + variant;
+        objectMapper.writeValue(new File(reportDir, reportName + ".json"), report);
+        if (!enabled) {
+            // A single cold round says nothing against a baseline
+            return;
+        }
+
+        TimingReport baseline = loadBaseline(reportName);
+        if (baseline == null) {
+            String message = "No timing baseline for " + reportName + ": record one with "
+                + "-Dpact.timing.rounds=15 and copy target/pact-timings/" + reportName + ".json to "
+                + "src/test/resources/pact-timings/";
+            if (variant == null) {
+                throw new AssertionError(message);
+            }
+            System.out.println(message + ", skipping regression check");
+            return;
+        }
+
+        List<String> regressions = compare(baseline, report);
+        if (!regressions.isEmpty()) {
+            throw new AssertionError("Timing check against baseline failed for " + provider + ":\n  "
+                + String.join("\n  ", regressions));
+        }
+    }
+
+    private List<String> compare(TimingReport baseline, TimingReport current) {
+        double threshold = Double.parseDouble(System.getProperty("pact.timing.threshold", "1.0"));
+        double minDeltaMs = Double.parseDouble(System.getProperty("pact.timing.minDeltaMs", "10"));
+
+        Map<String, InteractionTiming> expected = new HashMap<>();
+        for (InteractionTiming timing : baseline.interactions) {
+            expected.put(timing.key(), timing);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        Set<String> unused = new TreeSet<>(expected.keySet());
+        for (InteractionTiming timing : current.interactions) {
+            InteractionTiming base = expected.get(timing.key());
+            unused.remove(timing.key());
+            if (base == null) {
+                regressions.add(timing.key() + ": no baseline");
+                continue;
+            }
+            checkPhase(regressions, timing, "stateSetup", base.stateSetupMs, timing.stateSetupMs, threshold, minDeltaMs);
+            checkPhase(regressions, timing, "request", base.requestMs, timing.requestMs, threshold, minDeltaMs);
+            checkPhase(regressions, timing, "matching", base.matchingMs, timing.matchingMs, threshold, minDeltaMs);
+        }
+        if (!unused.isEmpty()) {
+            System.out.println("Timing baseline for " + provider + " has interactions that were not verified: " + unused);
+        }
+        return regressions;
+    }
+
+    private static void checkPhase(List<String> regressions, InteractionTiming timing, String phase,
+                                   double baselineMs, double actualMs, double threshold, double minDeltaMs) {
+        if (actualMs > baselineMs * (1 + threshold) && actualMs - baselineMs > minDeltaMs) {
+            regressions.add(String.format("%s [%s]: %.3f ms (baseline %.3f ms)",
+                timing.key(), phase, actualMs, baselineMs));
+        }
+    }
+
+    private TimingReport loadBaseline(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/pact-timings/" + name + ".json")) {
+            return in == null ? null : objectMapper.readValue(in, TimingReport.class);
+        }
+    }
+
+    private void attach(InteractionTiming timing) {
+        try {
+            Allure.addAttachment("Interaction timing", "application/json",
+                objectMapper.writeValueAsString(timing), ".json");
+        } catch (IOException e) {
+            System.err.println("Could not attach timing for " + timing.key() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One pact-jvm invocation, labelled with its round; tells the extension
+     * which round is running before the interaction's state is set up
+     */
+    private class RoundInvocation implements TestTemplateInvocationContext {
+        private final TestTemplateInvocationContext invocation;
+        private final int invocationRound;
+
+        RoundInvocation(TestTemplateInvocationContext invocation, int invocationRound) {
+            this.invocation = invocation;
+            this.invocationRound = invocationRound;
+        }
+
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            String label = invocationRound < warmUpRounds
+                ? "warm-up " + (invocationRound + 1)
+                : "round " + (invocationRound - warmUpRounds + 1);
+            return "[" + label + "] " + invocation.getDisplayName(invocationIndex);
+        }
+
+        @Override
+        public List<Extension> getAdditionalExtensions() {
+            List<Extension> extensions = new ArrayList<>();
+            extensions.add((BeforeTestExecutionCallback) context -> round = invocationRound);
+            extensions.addAll(invocation.getAdditionalExtensions());
+            return extensions;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.sdet.pact.provider.timing;
+
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.V4Interaction;
+import au.com.dius.pact.core.support.json.JsonValue;
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+import au.com.dius.pact.provider.junit5.PactVerificationContext;
+import io.qameta.allure.Allure;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Latency Budget Verifier
+ *
+ * Enforces latency budgets that consumers declare on interactions with a
+ * text comment of the form
+ * {@code latency-budget: p99<=50ms samples=200 warmup=20}
+ * (see {@code LatencyBudget} in consumer-service).
+ *
+ * After the interaction has been verified, and while its provider state is
+ * still in place, the request is replayed {@code warmup} times unmeasured
+ * and then {@code samples} times measured against the same target. Every
+ * replay must answer with the status the pact expects, so a provider that
+ * fails fast can't pass on speed; budgets therefore only suit interactions
+ * that can be repeated, such as reads. The verification fails if the
+ * measured p99 exceeds the budget. Interactions without a budget are left
+ * alone.
+ */
+public class LatencyBudgetVerifier {
+
+    private static final Pattern BUDGET = Pattern.compile(
+        "latency-budget:\\s*p99<=(\\d+)ms(?:\\s+samples=(\\d+))?(?:\\s+warmup=(\\d+))?");
+    private static final int DEFAULT_SAMPLES = 200;
+    private static final int DEFAULT_WARMUP = 20;
+
+    // Set by the HTTP client itself
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+
+    public void verify(PactVerificationContext context) {
+        Interaction interaction = context.getInteraction();
+        if (!(interaction instanceof V4Interaction.SynchronousHttp)) {
+            return;
+        }
+        V4Interaction.SynchronousHttp http = (V4Interaction.SynchronousHttp) interaction;
+        Matcher budget = findBudget(http.getComments());
+        if (budget == null) {
+            return;
+        }
+
+        long budgetMillis = Long.parseLong(budget.group(1));
+        int samples = budget.group(2) != null ? Integer.parseInt(budget.group(2)) : DEFAULT_SAMPLES;
+        int warmup = budget.group(3) != null ? Integer.parseInt(budget.group(3)) : DEFAULT_WARMUP;
+
+        HttpRequest request = toRequest((HttpTestTarget) context.getTarget(), http.getRequest());
+        int expectedStatus = http.getResponse().getStatus();
+        for (int i = 0; i < warmup; i++) {
+            checkStatus(interaction, expectedStatus, send(request));
+        }
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            int status = send(request);
+            latencies[i] = System.nanoTime() - start;
+            checkStatus(interaction, expectedStatus, status);
+        }
+        Arrays.sort(latencies);
+
+        double p50 = percentileMillis(latencies, 0.50);
+        double p99 = percentileMillis(latencies, 0.99);
+        String summary = String.format("%s: p50=%.3fms p99=%.3fms budget=%dms (samples=%d, warmup=%d)",
+            interaction.getDescription(), p50, p99, budgetMillis, samples, warmup);
+        System.out.println("Latency budget " + summary);
+        Allure.addAttachment("Latency budget", "text/plain", summary);
+
+        if (p99 > budgetMillis) {
+            throw new AssertionError("Latency budget exceeded for " + summary);
+        }
+    }
+
+    private static Matcher findBudget(Map<String, JsonValue> comments) {
+        JsonValue text = comments.get("text");
+        if (text == null || !text.isArray()) {
+            return null;
+        }
+        for (JsonValue comment : text.asArray().getValues()) {
+            if (comment.isString()) {
+                Matcher matcher = BUDGET.matcher(comment.asString());
+                if (matcher.find()) {
+                    return matcher;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The pact request as a JDK HTTP request against the target; also used
+     * to replay interactions in the soak suite
+     */
+    public static HttpRequest toRequest(HttpTestTarget target, au.com.dius.pact.core.model.HttpRequest pactRequest) {
+        StringBuilder uri = new StringBuilder("http://")
+            .append(target.getHost()).append(':').append(target.getPort())
+            .append(target.getPath().replaceAll("/$", ""))
+            .append(pactRequest.getPath());
+        char separator = '?';
+        for (Map.Entry<String, List<String>> parameter : pactRequest.getQuery().entrySet()) {
+            for (String value : parameter.getValue()) {
+                uri.append(separator)
+                    .append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8))
+                    .append('=')
+                    .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+
+        HttpRequest.BodyPublisher body = pactRequest.getBody().isPresent()
+            ? HttpRequest.BodyPublishers.ofByteArray(pactRequest.getBody().getValue())
+            : HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri.toString()))
+            .method(pactRequest.getMethod().toUpperCase(), body);
+        for (Map.Entry<String, List<String>> header : pactRequest.getHeaders().entrySet()) {
+            if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                header.getValue().forEach(value -> builder.header(header.getKey(), value));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void checkStatus(Interaction interaction, int expected, int actual) {
+        if (actual != expected) {
+            throw new AssertionError("Latency replay of '" + interaction.getDescription() + "' returned status "
+                + actual + ", the pact expects " + expected);
+        }
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new AssertionError("Latency replay failed for " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Latency replay interrupted", e);
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
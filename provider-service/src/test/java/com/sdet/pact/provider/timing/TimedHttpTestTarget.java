@@ -0,0 +1,30 @@
+package com.sdet.pact.provider.timing;
+
+import au.com.dius.pact.provider.ProviderResponse;
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP test target that records how long the provider took to answer,
+ * so request latency can be told apart from pact-jvm's matching time.
+ */
+public class TimedHttpTestTarget extends HttpTestTarget {
+
+    private final AtomicLong requestNanos;
+
+    TimedHttpTestTarget(String host, int port, AtomicLong requestNanos) {
+        super(host, port);
+        this.requestNanos = requestNanos;
+    }
+
+    @Override
+    public ProviderResponse executeInteraction(Object client, Object request) {
+        long start = System.nanoTime();
+        try {
+            return super.executeInteraction(client, request);
+        } finally {
+            requestNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+}
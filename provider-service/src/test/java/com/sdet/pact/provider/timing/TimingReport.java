@@ -0,0 +1,20 @@
+package com.sdet.pact.provider.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-provider timing report, written to target/pact-timings and also used
+ * as the format of the stored baselines
+ */
+public class TimingReport {
+    public String provider;
+    public int rounds = 1;
+    public List<InteractionTiming> interactions = new ArrayList<>();
+
+    public TimingReport() {}
+
+    public TimingReport(String provider) {
+        this.provider = provider;
+    }
+}
@@ -1,48 +1,68 @@
 package com.sdet.pact.provider.verification;
 
-import au.com.dius.pact.provider.junit5.HttpTestTarget;
 import au.com.dius.pact.provider.junit5.PactVerificationContext;
-import au.com.dius.pact.provider.junit5.PactVerificationInvocationContextProvider;
 import au.com.dius.pact.provider.junitsupport.Provider;
 import au.com.dius.pact.provider.junitsupport.State;
-import au.com.dius.pact.provider.junitsupport.loader.PactFolder;
+import com.sdet.pact.provider.loader.PactIndex;
 import com.sdet.pact.provider.stubs.ProductProviderStub;
-import org.junit.jupiter.api.AfterEach;
+import com.sdet.pact.provider.stubs.ProductStub;
+import com.sdet.pact.provider.stubs.ProductStubFleet;
+import com.sdet.pact.provider.stubs.StubFleet;
+import com.sdet.pact.provider.timing.InteractionTimingExtension;
+import com.sdet.pact.provider.timing.LatencyBudgetVerifier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.TestTemplate;
-import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
 
 /**
  * Provider Verification Tests for Product Service
  */
 @Provider("ProductProvider")
-@PactFolder("../consumer-service/target/pacts")
+@PactIndex("../consumer-service/target/pacts")
 @DisplayName("Product Provider Verification Tests")
 public class ProductProviderPactTest {
 
-    private ProductProviderStub providerStub;
+    private static ProductStub providerStub;
     private static final int PROVIDER_PORT = 8081;
 
-    @BeforeEach
-    void setup(PactVerificationContext context) {
-        providerStub = new ProductProviderStub(PROVIDER_PORT);
+    @RegisterExtension
+    static final InteractionTimingExtension timings = new InteractionTimingExtension(StubFleet.timingVariant());
+
+    private static final LatencyBudgetVerifier latencyBudgets = new LatencyBudgetVerifier();
+
+    @BeforeAll
+    static void startProvider() {
+        // -Dstub.shards=N runs the stub as a sharded fleet of N processes
+        int shards = StubFleet.configuredShards();
+        providerStub = shards > 1
+            ? new ProductStubFleet(PROVIDER_PORT, shards)
+            : new ProductProviderStub(PROVIDER_PORT);
         providerStub.start();
-        context.setTarget(new HttpTestTarget("localhost", PROVIDER_PORT));
     }
 
-    @AfterEach
-    void tearDown() {
+    @AfterAll
+    static void stopProvider() {
         if (providerStub != null) {
             providerStub.stop();
         }
     }
 
+    @BeforeEach
+    void setup(PactVerificationContext context) {
+        providerStub.reset();
+        context.setTarget(timings.target("localhost", PROVIDER_PORT));
+    }
+
     @TestTemplate
-    @ExtendWith(PactVerificationInvocationContextProvider.class)
     @DisplayName("Verify PACT interactions")
     void verifyPact(PactVerificationContext context) {
-        context.verifyInteraction();
+        timings.verify(context);
+        if (timings.isLastRound()) {
+            latencyBudgets.verify(context);
+        }
     }
 
     /**
@@ -1,17 +1,21 @@
 package com.sdet.pact.provider.verification;
 
-import au.com.dius.pact.provider.junit5.HttpTestTarget;
 import au.com.dius.pact.provider.junit5.PactVerificationContext;
-import au.com.dius.pact.provider.junit5.PactVerificationInvocationContextProvider;
 import au.com.dius.pact.provider.junitsupport.Provider;
 import au.com.dius.pact.provider.junitsupport.State;
-import au.com.dius.pact.provider.junitsupport.loader.PactFolder;
+import com.sdet.pact.provider.loader.PactIndex;
 import com.sdet.pact.provider.stubs.UserProviderStub;
-import org.junit.jupiter.api.AfterEach;
+import com.sdet.pact.provider.stubs.UserStub;
+import com.sdet.pact.provider.stubs.UserStubFleet;
+import com.sdet.pact.provider.stubs.StubFleet;
+import com.sdet.pact.provider.timing.InteractionTimingExtension;
+import com.sdet.pact.provider.timing.LatencyBudgetVerifier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.TestTemplate;
-import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
 
 /**
  * Provider Verification Tests for User Service
@@ -25,45 +29,55 @@ import org.junit.jupiter.api.extension.ExtendWith;
  * - Runs against a stub/mock provider service
  */
 @Provider("UserProvider")
-@PactFolder("../consumer-service/target/pacts")
+@PactIndex("../consumer-service/target/pacts")
 @DisplayName("User Provider Verification Tests")
 public class UserProviderPactTest {
 
-    private UserProviderStub providerStub;
+    private static UserStub providerStub;
     private static final int PROVIDER_PORT = 8080;
 
-    @BeforeEach
-    void setup(PactVerificationContext context) {
-        // Start the stub provider service
-        providerStub = new UserProviderStub(PROVIDER_PORT);
+    @RegisterExtension
+    static final InteractionTimingExtension timings = new InteractionTimingExtension(StubFleet.timingVariant());
+
+    private static final LatencyBudgetVerifier latencyBudgets = new LatencyBudgetVerifier();
+
+    @BeforeAll
+    static void startProvider() {
+        // Start the stub provider service once; -Dstub.shards=N runs it as a sharded fleet
+        int shards = StubFleet.configuredShards();
+        providerStub = shards > 1
+            ? new UserStubFleet(PROVIDER_PORT, shards)
+            : new UserProviderStub(PROVIDER_PORT);
         providerStub.start();
-        
-        // Configure the test target
-        context.setTarget(new HttpTestTarget("localhost", PROVIDER_PORT));
     }
 
-    @AfterEach
-    void tearDown() {
+    @AfterAll
+    static void stopProvider() {
         if (providerStub != null) {
             providerStub.stop();
-            try {
-                // Small delay to ensure port is released
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
         }
     }
 
+    @BeforeEach
+    void setup(PactVerificationContext context) {
+        // Every interaction starts from an empty stub
+        providerStub.reset();
+
+        // Configure the test target
+        context.setTarget(timings.target("localhost", PROVIDER_PORT));
+    }
+
     /**
      * This is the main verification method that runs for each interaction
      * defined in the PACT files
      */
     @TestTemplate
-    @ExtendWith(PactVerificationInvocationContextProvider.class)
     @DisplayName("Verify PACT interactions")
     void verifyPact(PactVerificationContext context) {
-        context.verifyInteraction();
+        timings.verify(context);
+        if (timings.isLastRound()) {
+            latencyBudgets.verify(context);
+        }
     }
 
     /**